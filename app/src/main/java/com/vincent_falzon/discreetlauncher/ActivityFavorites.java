@@ -114,8 +114,7 @@ public class ActivityFavorites extends AppCompatActivity implements View.OnClick
 
 		// Prepare the list of applications
 		final ArrayList<Application> applications = new ArrayList<>(ActivityMain.getApplicationsList().getFavorites()) ;
-		ArrayList<Application> allApplications = ActivityMain.getApplicationsList().getApplications(true) ;
-		for(Application application : allApplications)
+		for(Application application : ActivityMain.getApplicationsList().getApplications(true))
 			if(!applications.contains(application)) applications.add(application) ;
 
 		// List the names of all applications
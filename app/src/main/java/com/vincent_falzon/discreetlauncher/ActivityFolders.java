@@ -66,7 +66,7 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 		// Interface initializations
 		setContentView(R.layout.activity_folders) ;
 		findViewById(R.id.new_folder_button).setOnClickListener(this) ;
-		folders = ActivityMain.getApplicationsList().getFolders() ;
+		folders = new ArrayList<>(ActivityMain.getApplicationsList().getFolders()) ;
 
 		// Prepare and diplay the list of folders
 		RecyclerView foldersList = findViewById(R.id.folders_list) ;
@@ -104,10 +104,32 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 				folders.add(new Folder(new_folder_name, null)) ;
 				ActivityMain.updateList(this) ;
 				adapter.notifyDataSetChanged() ;
+				refreshAfterUpdate(folders, adapter) ;
 			}
 	}
 
 
+	/**
+	 * Display the folders of the applications list again once it has been rebuilt in the background,
+	 * as the list is only updated in the activity until then.
+	 * @param folders Folders displayed in the activity
+	 * @param adapter Adapter displaying the folders
+	 */
+	private static void refreshAfterUpdate(final ArrayList<Folder> folders, final RecyclerView.Adapter<?> adapter)
+	{
+		ActivityMain.getApplicationsList().runAfterUpdate(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					folders.clear() ;
+					folders.addAll(ActivityMain.getApplicationsList().getFolders()) ;
+					adapter.notifyDataSetChanged() ;
+				}
+			}) ;
+	}
+
+
 	/**
 	 * Fill a RecyclerView with the folders.
 	 */
@@ -192,6 +214,18 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 			}
 
 
+			/**
+			 * Replace a folder by its changed copy in the activity.
+			 * @param folder Folder currently in the list
+			 * @param copy Changed copy of the folder
+			 */
+			private void replaceFolder(Folder folder, Folder copy)
+			{
+				int position = folders.indexOf(folder) ;
+				if(position >= 0) folders.set(position, copy) ;
+			}
+
+
 			/**
 			 * Perform an action when an element is clicked.
 			 * @param view Target element
@@ -239,15 +273,19 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 										// Rename the folder file
 										if(file.rename(Constants.FILE_FOLDER_PREFIX + new_folder_name + ".txt"))
 											{
+												// Rename a copy of the folder, as the original is still displayed until the update
+												Folder renamed = new Folder(folder) ;
+												renamed.setDisplayName(new_folder_name) ;
+												replaceFolder(folder, renamed) ;
+
 												// Update the favorites if necessary
 												InternalFileTXT favorites = new InternalFileTXT(Constants.FILE_FAVORITES) ;
-												boolean was_in_favorites = favorites.removeLine(folder.getComponentInfo()) ;
-												folder.setDisplayName(new_folder_name) ;
-												if(was_in_favorites) favorites.writeLine(folder.getComponentInfo()) ;
+												if(favorites.removeLine(folder.getComponentInfo())) favorites.writeLine(renamed.getComponentInfo()) ;
 
 												// Update the applications list
 												ActivityMain.updateList(context) ;
 												notifyDataSetChanged() ;
+												refreshAfterUpdate(folders, FoldersListAdapter.this) ;
 											}
 											else ShowDialog.toastLong(context, context.getString(R.string.error_folder_rename)) ;
 									}
@@ -300,8 +338,10 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 										for(i = 0 ; i < selected.length ; i++)
 											if(selected[i]) file.writeLine(applications.get(i).getComponentInfo()) ;
 
-										// Update the display in the activity
-										folder.getApplications().clear() ;
+										// Update the display in the activity with a copy of the folder, as the
+										// original is still displayed until the update
+										Folder edited = new Folder(folder) ;
+										edited.getApplications().clear() ;
 										for(String component_info : file.readAllLines())
 										{
 											// Search the internal name in the applications list
@@ -309,14 +349,16 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 												if(application.getComponentInfo().equals(component_info))
 													{
 														// Add the application in the folder
-														folder.addToFolder(application) ;
+														edited.addToFolder(application) ;
 														break ;
 													}
 										}
+										replaceFolder(folder, edited) ;
 
 										// Update the applications list
 										ActivityMain.updateList(context) ;
 										notifyDataSetChanged() ;
+										refreshAfterUpdate(folders, FoldersListAdapter.this) ;
 									}
 								}) ;
 						dialog.show() ;
@@ -341,6 +383,7 @@ public class ActivityFolders extends AppCompatActivity implements View.OnClickLi
 										folders.remove(getBindingAdapterPosition()) ;
 										ActivityMain.updateList(context) ;
 										notifyDataSetChanged() ;
+										refreshAfterUpdate(folders, FoldersListAdapter.this) ;
 									}
 								}) ;
 						dialog.show() ;
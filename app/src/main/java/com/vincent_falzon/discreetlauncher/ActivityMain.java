@@ -46,6 +46,8 @@ import android.widget.TextView ;
 import com.vincent_falzon.discreetlauncher.core.Application ;
 import com.vincent_falzon.discreetlauncher.core.ApplicationsList ;
 import com.vincent_falzon.discreetlauncher.core.Folder ;
+import com.vincent_falzon.discreetlauncher.core.IconCache ;
+import com.vincent_falzon.discreetlauncher.core.LaunchCounter ;
 import com.vincent_falzon.discreetlauncher.core.Menu ;
 import com.vincent_falzon.discreetlauncher.core.Search ;
 import com.vincent_falzon.discreetlauncher.events.ShortcutLegacyListener ;
@@ -53,25 +55,26 @@ import com.vincent_falzon.discreetlauncher.events.MinuteListener ;
 import com.vincent_falzon.discreetlauncher.events.PackagesListener ;
 import com.vincent_falzon.discreetlauncher.notification.NotificationDisplayer ;
 import com.vincent_falzon.discreetlauncher.settings.ActivitySettings ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFile ;
 import com.vincent_falzon.discreetlauncher.storage.InternalFileTXT ;
 import java.util.Set ;
 
 /**
  * Main class activity managing the home screen and applications drawer.
  */
-public class ActivityMain extends AppCompatActivity implements View.OnClickListener, SharedPreferences.OnSharedPreferenceChangeListener
+public class ActivityMain extends AppCompatActivity implements View.OnClickListener, SharedPreferences.OnSharedPreferenceChangeListener, ApplicationsList.UpdateListener
 {
 	// Attributes
 	private static ApplicationsList applicationsList ;
 	private static boolean ignore_settings_changes ;
 	private static boolean adapters_update_needed ;
-	private static String internal_folder ;
 	private static int application_width ;
 	private PackagesListener packagesListener ;
 	private ShortcutLegacyListener shortcutLegacyListener ;
 	private SharedPreferences settings ;
 	private GestureDetectorCompat gestureDetector ;
 	private NotificationDisplayer notification ;
+	private boolean fully_drawn_reported ;
 
 	// Attributes related to the home screen
 	private LinearLayout homeScreen ;
@@ -102,8 +105,15 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 		// Let the parent actions be performed
 		super.onCreate(savedInstanceState) ;
 
+		// Enable the trace sections if requested in the debug settings (only available in debug builds)
+		settings = PreferenceManager.getDefaultSharedPreferences(this) ;
+		Tracing.setEnabled(BuildConfig.DEBUG && settings.getBoolean(Constants.DEBUG_TRACING, false)) ;
+		Tracing.begin("ActivityMain.onCreate") ;
+
 		// Initializations
-		internal_folder = getApplicationContext().getFilesDir().getAbsolutePath() ;
+		Tracing.begin("onCreate:settings") ;
+		InternalFile.setFolder(getApplicationContext().getFilesDir().getAbsolutePath()) ;
+		fully_drawn_reported = false ;
 
 		// Assign default values to settings not configured yet
 		PreferenceManager.setDefaultValues(this, R.xml.settings, true) ;
@@ -111,7 +121,6 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 		PreferenceManager.setDefaultValues(this, R.xml.settings_operation, true) ;
 
 		// Retrieve the current settings and start to listen for changes
-		settings = PreferenceManager.getDefaultSharedPreferences(this) ;
 		convertHiddenApplications() ;
 		convertClockFormat() ;
 		settings.registerOnSharedPreferenceChangeListener(this) ;
@@ -119,8 +128,10 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 
 		// Set the light or dark theme according to settings
 		setApplicationTheme() ;
+		Tracing.end() ;
 
 		// Check if the interface should be reversed and define the appropriate layout
+		Tracing.begin("onCreate:layout") ;
 		reverse_interface = settings.getBoolean(Constants.REVERSE_INTERFACE, false) ;
 		if(reverse_interface) setContentView(R.layout.activity_main_reverse) ;
 			else setContentView(R.layout.activity_main) ;
@@ -136,15 +147,20 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 		targetFavorites.setOnClickListener(this) ;
 		targetApplications.setOnClickListener(this) ;
 		gestureDetector = new GestureDetectorCompat(this, new GestureListener()) ;
+		Tracing.end() ;
 
-		// If it does not exist yet, build the applications list
+		// If it does not exist yet, start to build the applications list in the background
+		Tracing.begin("onCreate:applicationsList") ;
 		if(applicationsList == null)
 			{
+				IconCache.setDefaultBudget(this) ;
 				applicationsList = new ApplicationsList() ;
 				applicationsList.update(this) ;
 			}
+		Tracing.end() ;
 
 		// Update the display according to settings
+		Tracing.begin("onCreate:display") ;
 		togglePortraitMode() ;
 		toggleTouchTargets() ;
 		if(settings.getBoolean(Constants.IMMERSIVE_MODE, false)) displaySystemBars(false) ;
@@ -164,8 +180,10 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 				&& settings.getBoolean(Constants.REMOVE_PADDING, false)) padding = 0 ;
 			else padding = 30 ;
 		application_width = Math.round((50 + padding) * getResources().getDisplayMetrics().density) ;
+		Tracing.end() ;
 
 		// Initialize the content of the favorites panel
+		Tracing.begin("onCreate:adapters") ;
 		favoritesAdapter = new RecyclerAdapter(this, applicationsList.getFavorites()) ;
 		RecyclerView favoritesRecycler = findViewById(R.id.favorites_applications) ;
 		favoritesRecycler.setAdapter(favoritesAdapter) ;
@@ -178,11 +196,16 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 		drawer.setLayoutManager(drawerLayout) ;
 		drawer.addOnScrollListener(new DrawerScrollListener()) ;
 
+		// Be informed when the applications list has been built or updated
+		applicationsList.setUpdateListener(this) ;
+
 		// Hide the favorites panel and the drawer by default
 		displayFavorites(false) ;
 		displayDrawer(false) ;
+		Tracing.end() ;
 
 		// Start to listen for packages added or removed
+		Tracing.begin("onCreate:receivers") ;
 		packagesListener = new PackagesListener() ;
 		registerReceiver(packagesListener, packagesListener.getFilter()) ;
 
@@ -192,6 +215,11 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 				shortcutLegacyListener = new ShortcutLegacyListener() ;
   				registerReceiver(shortcutLegacyListener, shortcutLegacyListener.getFilter()) ;
 			}
+		Tracing.end() ;
+		Tracing.end() ;
+
+		// If the applications list was already built, the drawer is ready
+		if(!applicationsList.isUpdating()) reportFullyDrawnOnce() ;
 	}
 
 
@@ -381,16 +409,6 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 	}
 
 
-	/**
-	 * Return the internal files folder location (must be initialized by ActivityMain).
-	 * @return Internal files folder location on the system or <code>null</code> if not initialized
-	 */
-	public static String getInternalFolder()
-	{
-		return internal_folder ;
-	}
-
-
 	/**
 	 * Return the application width in pixels (must be initialized by ActivityMain).
 	 * @return Based on settings or 0 if not initialized
@@ -423,17 +441,101 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 	}
 
 
+	/**
+	 * Update the applications of a package only, after it was installed, removed or updated.
+	 * @param context To load the applications of the package and inform the user
+	 * @param apk Package name
+	 * @param inform_user <code>true</code> to display a message, <code>false</code> otherwise
+	 */
+	public static void updatePackage(Context context, String apk, boolean inform_user)
+	{
+		if(applicationsList == null) return ;
+		applicationsList.updatePackage(context, apk) ;
+		if(inform_user) ShowDialog.toast(context, R.string.info_applications_list_refreshed) ;
+	}
+
+
 	/**
 	 * Update the display in the favorites panel and applications drawer.
 	 */
 	private void updateAdapters()
 	{
 		favoritesAdapter.notifyDataSetChanged() ;
-		drawerAdapter.notifyDataSetChanged() ;
+		drawerAdapter.setApplicationsList(applicationsList.getDrawer(), true) ;
 		adapters_update_needed = false ;
 	}
 
 
+	/**
+	 * Display the new applications list as soon as it has been published.
+	 */
+	@Override
+	public void onApplicationsListUpdated()
+	{
+		updateAdapters() ;
+		reportFullyDrawnOnce() ;
+	}
+
+
+	/**
+	 * Inform the system that the drawer is ready, only the first time.
+	 */
+	private void reportFullyDrawnOnce()
+	{
+		if(fully_drawn_reported) return ;
+		fully_drawn_reported = true ;
+		reportFullyDrawn() ;
+	}
+
+
+	/**
+	 * Display a change of a single item in the applications drawer.
+	 * @param change <code>ITEM_INSERTED</code>, <code>ITEM_REMOVED</code> or <code>ITEM_CHANGED</code>
+	 * @param position Position of the item in the new drawer
+	 */
+	@Override
+	public void onDrawerItemChanged(int change, int position)
+	{
+		drawerAdapter.setApplicationsList(applicationsList.getDrawer(), false) ;
+		notifyItemChanged(drawerAdapter, change, position) ;
+	}
+
+
+	/**
+	 * Display a change of a single item in the favorites panel.
+	 * @param change <code>ITEM_INSERTED</code>, <code>ITEM_REMOVED</code> or <code>ITEM_CHANGED</code>
+	 * @param position Position of the item in the favorites
+	 */
+	@Override
+	public void onFavoritesItemChanged(int change, int position)
+	{
+		notifyItemChanged(favoritesAdapter, change, position) ;
+	}
+
+
+	/**
+	 * Inform an adapter that a single item has changed.
+	 * @param adapter Adapter to inform
+	 * @param change <code>ITEM_INSERTED</code>, <code>ITEM_REMOVED</code> or <code>ITEM_CHANGED</code>
+	 * @param position Position of the item
+	 */
+	private static void notifyItemChanged(RecyclerAdapter adapter, int change, int position)
+	{
+		switch(change)
+		{
+			case ApplicationsList.ITEM_INSERTED :
+				adapter.notifyItemInserted(position) ;
+				break ;
+			case ApplicationsList.ITEM_REMOVED :
+				adapter.notifyItemRemoved(position) ;
+				break ;
+			case ApplicationsList.ITEM_CHANGED :
+				adapter.notifyItemChanged(position) ;
+				break ;
+		}
+	}
+
+
 	/**
 	 * Detect a click on an element from the activity.
 	 * @param view Element clicked
@@ -558,6 +660,8 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 				setApplicationTheme() ;
 				break ;
 			case Constants.ICON_PACK :
+			case Constants.LAZY_ICONS :
+			case Constants.ICON_ATLAS :
 				// Update the applications list
 				updateList(this) ;
 				break ;
@@ -576,6 +680,10 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 				// Display or not the touch targets
 				toggleTouchTargets() ;
 				break ;
+			case Constants.DEBUG_TRACING :
+				// Start or stop to record the trace sections
+				Tracing.setEnabled(BuildConfig.DEBUG && settings.getBoolean(Constants.DEBUG_TRACING, false)) ;
+				break ;
 		}
 	}
 
@@ -669,6 +777,9 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 		// Always show the system bars
 		displaySystemBars(true) ;
 
+		// Save the launches counted meanwhile, as the process can be killed in the background
+		LaunchCounter.flush() ;
+
 		// Hide folders and search application if they are still opened
 		for(Application application : applicationsList.getDrawer())
 		{
@@ -701,12 +812,33 @@ public class ActivityMain extends AppCompatActivity implements View.OnClickListe
 	}
 
 
+	/**
+	 * Release memory when requested by the system, to avoid being killed first.
+	 * @param level Memory pressure level
+	 */
+	@Override
+	public void onTrimMemory(int level)
+	{
+		// Let the parent actions be performed
+		super.onTrimMemory(level) ;
+
+		// Shrink or empty the icons cache (icons will be loaded again when displayed)
+		IconCache.trimMemory(level) ;
+	}
+
+
 	/**
 	 * Perform actions when the activity is destroyed.
 	 */
 	@Override
 	public void onDestroy()
 	{
+		// Stop to listen for applications list updates
+		if(applicationsList != null) applicationsList.setUpdateListener(null) ;
+
+		// Release the search popup, which would keep the destroyed activity in memory
+		if(applicationsList != null) applicationsList.releaseSearch() ;
+
 		// Unregister all remaining broadcast receivers
 		if(minuteListener != null) unregisterReceiver(minuteListener) ;
 		if(packagesListener != null) unregisterReceiver(packagesListener) ;
@@ -34,6 +34,11 @@ public abstract class Constants
 	public static final String FILE_SHORTCUTS = "shortcuts.txt" ;
 	public static final String FILE_SHORTCUTS_LEGACY = "shortcuts_legacy.txt" ;
 	public static final String FILE_ICON_SHORTCUT_PREFIX = "icon_shortcut_" ;
+	public static final String FILE_CACHE_APPLICATIONS = "cache_applications.txt" ;
+	public static final String FILE_CACHE_ICON_PREFIX = "cache_icon_" ;
+	public static final String FILE_CACHE_ICON_PACK = "cache_iconpack.bin" ;
+	public static final String FILE_LAUNCHES = "launches.bin" ;
+	public static final String CACHE_SEPARATOR = "--CA--CHE--" ;
 
 	// Constants related to applications
 	public static final String APK_SEARCH = "discreetlauncher.search" ;
@@ -57,6 +62,10 @@ public abstract class Constants
 	public static final String IMMERSIVE_MODE = "immersive_mode" ;
 	public static final String REVERSE_INTERFACE = "reverse_interface" ;
 	public static final String TOUCH_TARGETS = "touch_targets" ;
+	public static final String SEARCH_TYPOS = "search_typos" ;
+	public static final String LAZY_ICONS = "lazy_icons" ;
+	public static final String ICON_ATLAS = "icon_atlas" ;
+	public static final String DEBUG_TRACING = "debug_tracing" ;
 
 	// To remove after 31/07/2021 (setting migrated to internal file)
 	public static final String HIDDEN_APPLICATIONS = "hidden_applications" ;
@@ -45,6 +45,7 @@ import com.vincent_falzon.discreetlauncher.core.Folder ;
 import com.vincent_falzon.discreetlauncher.core.Shortcut ;
 import com.vincent_falzon.discreetlauncher.events.ShortcutListener ;
 import java.util.ArrayList ;
+import java.util.List ;
 
 /**
  * Fill a RecyclerView with a list of applications.
@@ -70,6 +71,18 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 	}
 
 
+	/**
+	 * Replace the applications displayed in the RecyclerView.
+	 * @param applicationsList New applications to display
+	 * @param notify_all <code>true</code> to refresh all items, <code>false</code> if the caller notifies the changed items
+	 */
+	public void setApplicationsList(ArrayList<Application> applicationsList, boolean notify_all)
+	{
+		this.applicationsList = applicationsList ;
+		if(notify_all) notifyDataSetChanged() ;
+	}
+
+
 	/**
 	 * Create an ApplicationView to add in the RecyclerView based on an XML layout.
 	 * @param parent To get the context
@@ -94,15 +107,32 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 	@Override
 	public void onBindViewHolder(@NonNull ApplicationView appView, int i)
 	{
+		Tracing.begin("RecyclerAdapter.onBindViewHolder") ;
+		try { bindApplication(appView, i) ; }
+		finally { Tracing.end() ; }
+	}
+
+
+	/**
+	 * Display an application in its ApplicationView.
+	 * @param appView Current application
+	 * @param i Position of the application in the list
+	 */
+	private void bindApplication(ApplicationView appView, int i)
+	{
+		// If the icon is not loaded yet, display a placeholder and refresh the item once loaded
+		final Application application = getApplications().get(i) ;
+		if(application.isIconPending()) application.loadIcon(appView.name.getResources(), new IconRefresher(application, i)) ;
+
 		// Display the application icon and text
-		appView.name.setText(applicationsList.get(i).getDisplayName()) ;
-		appView.name.setCompoundDrawables(null, applicationsList.get(i).getIcon(), null, null) ;
+		appView.name.setText(application.getDisplayName()) ;
+		appView.name.setCompoundDrawables(null, application.getIcon(appView.name.getResources()), null, null) ;
 
 		// Check if applications names should be hidden
 		if(settings.getBoolean(Constants.HIDE_APP_NAMES, false))
 			{
 				// Hide applications names except folders
-				if(applicationsList.get(i) instanceof Folder) appView.name.setTextSize(14) ;
+				if(getApplications().get(i) instanceof Folder) appView.name.setTextSize(14) ;
 					else appView.name.setTextSize(0) ;
 
 				// If the option is selected, remove padding around the applications
@@ -118,6 +148,16 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 	}
 
 
+	/**
+	 * Get the applications currently displayed in the RecyclerView.
+	 * @return Applications in their display order
+	 */
+	protected List<Application> getApplications()
+	{
+		return applicationsList ;
+	}
+
+
 	/**
 	 * Return the number of items in the RecyclerView.
 	 * @return Number of items
@@ -125,7 +165,45 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 	@Override
 	public int getItemCount()
 	{
-		return applicationsList.size() ;
+		return getApplications().size() ;
+	}
+
+
+	/**
+	 * Refresh an application item once its icon has been loaded.
+	 */
+	private class IconRefresher implements Runnable
+	{
+		// Attributes
+		private final Application application ;
+		private final int position ;
+
+
+		/**
+		 * Constructor.
+		 * @param application Application whose icon is loading
+		 * @param position Position of the application when the loading started
+		 */
+		IconRefresher(Application application, int position)
+		{
+			this.application = application ;
+			this.position = position ;
+		}
+
+
+		/**
+		 * Refresh the item, searching it again if the list has changed meanwhile.
+		 */
+		@Override
+		public void run()
+		{
+			if((position < getApplications().size()) && (getApplications().get(position) == application)) notifyItemChanged(position) ;
+				else
+				{
+					int new_position = getApplications().indexOf(application) ;
+					if(new_position >= 0) notifyItemChanged(new_position) ;
+				}
+		}
 	}
 
 
@@ -167,7 +245,7 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 			setVisualFeedback(context, true) ;
 
 			// Start the application
-			Application application = applicationsList.get(getBindingAdapterPosition()) ;
+			Application application = getApplications().get(getBindingAdapterPosition()) ;
 			if(!application.start(view))
 				ShowDialog.toastLong(context, context.getString(R.string.error_application_not_found, application.getDisplayName())) ;
 
@@ -194,7 +272,7 @@ public class RecyclerAdapter extends RecyclerView.Adapter<RecyclerAdapter.Applic
 		{
 			// Get the clicked position and retrieve the selected application
 			if(view == null) return false ;
-			final Application application = applicationsList.get(getBindingAdapterPosition()) ;
+			final Application application = getApplications().get(getBindingAdapterPosition()) ;
 			final Context context = view.getContext() ;
 
 			// Show visual feedback (will be hidden after click or dismiss)
@@ -24,90 +24,227 @@ package com.vincent_falzon.discreetlauncher;
 
 // Imports
 import android.content.Context ;
-import android.widget.Filter ;
-import android.widget.Filterable ;
+import android.os.Handler ;
+import android.os.Looper ;
+import android.view.View ;
+import androidx.annotation.NonNull ;
+import androidx.recyclerview.widget.AsyncListDiffer ;
+import androidx.recyclerview.widget.DiffUtil ;
 import com.vincent_falzon.discreetlauncher.core.Application ;
+import com.vincent_falzon.discreetlauncher.core.IncrementalSearch ;
+import com.vincent_falzon.discreetlauncher.core.LaunchCounter ;
+import com.vincent_falzon.discreetlauncher.core.SearchIndex ;
 import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+import java.util.concurrent.ScheduledExecutorService ;
+import java.util.concurrent.TimeUnit ;
+import java.util.concurrent.atomic.AtomicInteger ;
 
 /**
  * Fill a RecyclerView with a list of applications filtered with a search result.
+ * The searches are performed one at a time in the background, grouping the characters typed
+ * in quick succession and dropping the results of the searches replaced meanwhile. The differences
+ * between two results are also computed in the background, so that only the applications added,
+ * removed or moved are updated in the RecyclerView.
  */
-public class SearchAdapter extends RecyclerAdapter implements Filterable
+public class SearchAdapter extends RecyclerAdapter
 {
+	// Constants
+	private static final long SEARCH_DELAY = 20 ;
+
 	// Attributes
+	private static final ScheduledExecutorService searchThread = Executors.newSingleThreadScheduledExecutor() ;
+	private final Handler mainThread ;
+	private final AtomicInteger last_search_id ;
+	private Future<?> pendingSearch ;
+	private String displayed_pattern ;
 	private final ArrayList<Application> initialApplicationsList ;
+	private final IncrementalSearch search ;
+	private final AsyncListDiffer<Application> differ ;
 
 
 	/**
-	 * Constructor to fill a RecyclerView with the applications list.
+	 * Constructor to fill a RecyclerView with the applications of a search index.
 	 * @param context To get the settings
-	 * @param applicationsList Applications to display in the recycler
+	 * @param searchIndex Applications to display in the recycler and search
+	 * @param typos To accept names containing the pattern with typing mistakes
 	 */
-	public SearchAdapter(Context context, ArrayList<Application> applicationsList)
+	public SearchAdapter(Context context, SearchIndex searchIndex, boolean typos)
 	{
-		super(context, applicationsList) ;
-		initialApplicationsList = applicationsList ;
+		super(context, searchIndex.getApplications()) ;
+		initialApplicationsList = searchIndex.getApplications() ;
+		search = new IncrementalSearch(searchIndex, typos, LaunchCounter.getCounts()) ;
+		mainThread = new Handler(Looper.getMainLooper()) ;
+		last_search_id = new AtomicInteger(0) ;
+		pendingSearch = null ;
+
+		// Display the results once their differences with the current ones have been computed
+		differ = new AsyncListDiffer<>(this, new SameApplication()) ;
+		differ.submitList(initialApplicationsList) ;
+		displayed_pattern = "" ;
 	}
 
 
 	/**
-	 * Create the filter which will be used to search in the list.
-	 * @return Filter used to match the search
+	 * Take into account the applications launched since the adapter was created or last refreshed.
 	 */
-	@Override
-	public Filter getFilter()
+	public void refreshLaunches()
 	{
-		return new Filter()
-		{
-			/**
-			 * Define the results after the filter is applied.
-			 * @param filter Search pattern
-			 * @return Results after filtering
-			 */
-			@Override
-			protected FilterResults performFiltering(CharSequence filter)
+		search.setLaunches(LaunchCounter.getCounts()) ;
+	}
+
+
+	/**
+	 * Start to search a pattern, replacing the previous search if it is not finished (to call from the main thread).
+	 * The search starts after a short delay, which is restarted by each character typed meanwhile.
+	 * @param text Pattern typed by the user
+	 */
+	public void filter(CharSequence text)
+	{
+		// Display all the applications directly if the search is empty
+		String pattern = text.toString() ;
+		if(pattern.isEmpty())
 			{
-				// Filter the results based on the search pattern
-				String search = filter.toString().toLowerCase() ;
-				if(search.isEmpty()) applicationsList = initialApplicationsList ;
-					else
-					{
-						applicationsList = new ArrayList<>() ;
-						for(Application application : initialApplicationsList)
-							if(application.getDisplayName().toLowerCase().contains(search))
-								applicationsList.add(application) ;
-					}
-
-				// Prepare the filter results
-				FilterResults filterResults = new FilterResults() ;
-				filterResults.values = applicationsList ;
-				return filterResults ;
+				last_search_id.incrementAndGet() ;
+				if(pendingSearch != null) pendingSearch.cancel(false) ;
+				pendingSearch = null ;
+				display(pattern, initialApplicationsList) ;
+				return ;
 			}
 
+		// Search in the background once the user has stopped typing for a short delay
+		search(pattern, SEARCH_DELAY, null) ;
+	}
+
+
+	/**
+	 * Start the best match of a pattern (to call from the main thread).
+	 * The displayed results are used if they match the pattern, otherwise the pattern is searched
+	 * in the background without delay and its best match is started once the results are displayed.
+	 * @param text Pattern typed by the user
+	 * @param view Used to start the application
+	 * @return <code>true</code> if an application is started or will be, <code>false</code> otherwise
+	 */
+	public boolean startBestMatch(CharSequence text, View view)
+	{
+		// Ignore an empty search, which would start the first application of the full list
+		String pattern = text.toString() ;
+		if(pattern.isEmpty()) return false ;
 
-			/**
-			 * Display the search results.
-			 * @param filter Search pattern
-			 * @param results Results after filtering
-			 */
-			@Override
-			protected void publishResults(CharSequence filter, FilterResults results)
+		// Start the first result directly if the displayed results match the pattern
+		if(pattern.equals(displayed_pattern))
 			{
-				//noinspection unchecked
-				applicationsList = (ArrayList<Application>)results.values ;
-				notifyDataSetChanged() ;
+				List<Application> results = differ.getCurrentList() ;
+				if(results.isEmpty()) return false ;
+				results.get(0).start(view) ;
+				return true ;
 			}
-		} ;
+
+		// Otherwise, replace the pending search by this one and start its best match when it is done
+		search(pattern, 0, view) ;
+		return true ;
+	}
+
+
+	/**
+	 * Search a pattern in the background, replacing the previous search if it is not finished.
+	 * @param pattern Pattern typed by the user
+	 * @param delay Milliseconds to wait before searching
+	 * @param view Used to start the best match, or <code>null</code> to only display the results
+	 */
+	private void search(final String pattern, long delay, final View view)
+	{
+		// Cancel the previous search if it has not started yet, and make its results obsolete otherwise
+		final int search_id = last_search_id.incrementAndGet() ;
+		if(pendingSearch != null) pendingSearch.cancel(false) ;
+
+		// Search in the background after the delay
+		pendingSearch = searchThread.schedule(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// Filter the applications, unless another search has been requested meanwhile
+					if(search_id != last_search_id.get()) return ;
+					final ArrayList<Application> results = search.filter(pattern) ;
+					if(search_id != last_search_id.get()) return ;
+
+					// Display the results and start the best match if requested, unless another search has been requested meanwhile
+					mainThread.post(new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								if(search_id != last_search_id.get()) return ;
+								display(pattern, results) ;
+								if((view != null) && !results.isEmpty()) results.get(0).start(view) ;
+							}
+						}) ;
+				}
+			}, delay, TimeUnit.MILLISECONDS) ;
+	}
+
+
+	/**
+	 * Display the results of a pattern once their differences with the current ones have been computed.
+	 * @param pattern Pattern of the results
+	 * @param results Applications to display
+	 */
+	private void display(final String pattern, List<Application> results)
+	{
+		differ.submitList(results, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					displayed_pattern = pattern ;
+				}
+			}) ;
+	}
+
+
+	/**
+	 * Get the applications currently displayed, which are replaced by the differ once their
+	 * differences with the new results have been notified.
+	 * @return Applications in their display order
+	 */
+	@Override
+	protected List<Application> getApplications()
+	{
+		return differ.getCurrentList() ;
 	}
 
 
 	/**
-	 * Provide the first item currently displayed in the adapter.
-	 * @return First item in the list, or <code>null</code> if the list is empty
+	 * Identify the applications in two results, which are the same objects in all results.
 	 */
-	public Application getFirstItem()
+	private static class SameApplication extends DiffUtil.ItemCallback<Application>
 	{
-		if(getItemCount() < 1) return null ;
-		return applicationsList.get(0) ;
+		/**
+		 * Check if two items represent the same application.
+		 * @param oldItem Application in the previous result
+		 * @param newItem Application in the new result
+		 * @return <code>true</code> if this is the same application, <code>false</code> otherwise
+		 */
+		@Override
+		public boolean areItemsTheSame(@NonNull Application oldItem, @NonNull Application newItem)
+		{
+			return oldItem == newItem ;
+		}
+
+
+		/**
+		 * Check if the display of an application needs to be updated.
+		 * @param oldItem Application in the previous result
+		 * @param newItem Same application in the new result
+		 * @return Always <code>true</code> as applications do not change during a search
+		 */
+		@Override
+		public boolean areContentsTheSame(@NonNull Application oldItem, @NonNull Application newItem)
+		{
+			return true ;
+		}
 	}
 }
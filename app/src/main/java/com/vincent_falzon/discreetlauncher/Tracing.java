@@ -0,0 +1,88 @@
+package com.vincent_falzon.discreetlauncher ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import android.os.Trace ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+/**
+ * Provide methods to mark sections of code visible in a system trace (Perfetto or systrace),
+ * only when the debug setting is enabled. Nothing is done while it is disabled and no section is
+ * open. Every section opened is closed by an <code>end()</code> call on its thread, even if the
+ * setting changes meanwhile: the calls without matching section are ignored, and a section opened
+ * before the setting is disabled may be closed by the end of a section skipped since.
+ */
+public abstract class Tracing
+{
+	// Attributes
+	private static volatile boolean enabled = false ;
+	private static final AtomicInteger open_sections = new AtomicInteger(0) ;
+	private static final ThreadLocal<int[]> opened = new ThreadLocal<int[]>()
+		{
+			@Override
+			protected int[] initialValue()
+			{
+				// Number of sections opened on the thread
+				return new int[] { 0 } ;
+			}
+		} ;
+
+
+	/**
+	 * Enable or disable the trace sections.
+	 * @param enable <code>true</code> to record the sections, <code>false</code> otherwise
+	 */
+	public static void setEnabled(boolean enable)
+	{
+		enabled = enable ;
+	}
+
+
+	/**
+	 * Start a section on the current thread, must be closed by <code>end()</code> on the same thread.
+	 * @param name Name of the section (up to 127 characters)
+	 */
+	public static void begin(String name)
+	{
+		if(!enabled) return ;
+		Trace.beginSection(name) ;
+		opened.get()[0]++ ;
+		open_sections.incrementAndGet() ;
+	}
+
+
+	/**
+	 * Close the last section started on the current thread, if it is still open.
+	 */
+	public static void end()
+	{
+		// Check the sections opened on all threads first, to do nothing while no section is open
+		if(open_sections.get() == 0) return ;
+		int[] depth = opened.get() ;
+		if(depth[0] == 0) return ;
+		depth[0]-- ;
+		open_sections.decrementAndGet() ;
+		Trace.endSection() ;
+	}
+}
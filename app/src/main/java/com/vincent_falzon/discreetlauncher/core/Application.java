@@ -26,20 +26,38 @@ package com.vincent_falzon.discreetlauncher.core ;
 import android.content.Context ;
 import android.content.Intent ;
 import android.content.pm.PackageManager ;
+import android.content.res.Resources ;
+import android.graphics.Bitmap ;
 import android.graphics.drawable.Drawable ;
 import android.view.View ;
+import com.vincent_falzon.discreetlauncher.Tracing ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFilePNG ;
+import java.lang.ref.WeakReference ;
+import java.text.CollationKey ;
+import java.text.Collator ;
+import java.util.Locale ;
 
 /**
  * Represent an Android application with its names (displayed, internal and package) and icon.
+ * Applications are sorted by display name according to the rules of the current language.
  */
-public class Application
+public class Application implements Comparable<Application>
 {
+	// Collator of each thread (not thread-safe, accessed through getCollationKey only), as applications
+	// are created by several threads at once. Keys built with the same language and strength are comparable.
+	private static final ThreadLocal<Collator> collator = new ThreadLocal<>() ;
+	private static final ThreadLocal<Locale> collator_locale = new ThreadLocal<>() ;
+
 	// Attributes
 	String display_name ;
+	CollationKey sort_key ;
 	String name ;
 	final String apk ;
 	String component_info ;
 	Drawable icon ;
+	private String icon_file ;
+	private boolean icon_loading ;
+	private WeakReference<Bitmap> displayed_icon ;
 
 
 	/**
@@ -52,10 +70,14 @@ public class Application
 	public Application(String display_name, String name, String apk, Drawable icon)
 	{
 		this.display_name = display_name ;
+		sort_key = getCollationKey(display_name) ;
 		this.name = name ;
 		this.apk = apk ;
 		this.icon = icon ;
 		component_info = "{" + apk + "/" + name + "}" ;
+		icon_file = null ;
+		icon_loading = false ;
+		displayed_icon = null ;
 	}
 
 
@@ -69,6 +91,39 @@ public class Application
 	}
 
 
+	/**
+	 * Build the key used to sort a display name, ignoring case but not accents.
+	 * @param display_name Name displayed in the menus
+	 * @return Precomputed key to compare with others
+	 */
+	static CollationKey getCollationKey(String display_name)
+	{
+		// Create the collator of the thread again if the language has changed
+		Locale locale = Locale.getDefault() ;
+		Collator thread_collator = collator.get() ;
+		if((thread_collator == null) || !locale.equals(collator_locale.get()))
+			{
+				thread_collator = Collator.getInstance(locale) ;
+				thread_collator.setStrength(Collator.SECONDARY) ;
+				collator.set(thread_collator) ;
+				collator_locale.set(locale) ;
+			}
+		return thread_collator.getCollationKey(display_name) ;
+	}
+
+
+	/**
+	 * Compare the display names of two applications according to the current language.
+	 * @param application To compare with
+	 * @return Negative if this application comes first, positive if it comes after, 0 if equal
+	 */
+	@Override
+	public int compareTo(Application application)
+	{
+		return sort_key.compareTo(application.sort_key) ;
+	}
+
+
 	/**
 	 * Get the internal name of the application.
 	 * @return Application name used internally
@@ -101,11 +156,15 @@ public class Application
 
 	/**
 	 * Get the icon of the application.
-	 * @return Icon displayed in the menus
+	 * @param resources Resources of the context displaying the icon
+	 * @return Icon displayed in the menus, or a placeholder if it is not loaded yet
 	 */
-	public Drawable getIcon()
+	public Drawable getIcon(Resources resources)
 	{
-		return icon ;
+		if((icon != null) || (icon_file == null)) return icon ;
+		Bitmap bitmap = getCachedIcon() ;
+		if(bitmap == null) return IconLoader.getPlaceholder(Math.round(48 * resources.getDisplayMetrics().density)) ;
+		return IconCache.toDrawable(resources, bitmap) ;
 	}
 
 
@@ -116,6 +175,97 @@ public class Application
 	public void setIcon(Drawable new_icon)
 	{
 		icon = new_icon ;
+		icon_file = null ;
+	}
+
+
+	/**
+	 * Let the icon be kept in the icons cache, and loaded from an internal file when it is not there.
+	 * @param filename Name of the PNG file containing the icon, also used as cache key
+	 */
+	void setIconFile(String filename)
+	{
+		icon = null ;
+		icon_file = filename ;
+		displayed_icon = null ;
+	}
+
+
+	/**
+	 * Retrieve the icon from the cache, or from a view still displaying it if it was evicted.
+	 * @return A bitmap or <code>null</code> if it needs to be loaded again
+	 */
+	private Bitmap getCachedIcon()
+	{
+		Bitmap bitmap = IconCache.get(icon_file) ;
+		Bitmap displayed = (displayed_icon == null) ? null : displayed_icon.get() ;
+		if(bitmap == null)
+			{
+				if(displayed != null) IconCache.put(icon_file, displayed) ;
+				return displayed ;
+			}
+		if(bitmap != displayed) displayed_icon = new WeakReference<>(bitmap) ;
+		return bitmap ;
+	}
+
+
+	/**
+	 * Check if the icon needs to be loaded before it can be displayed.
+	 * @return <code>true</code> if a placeholder is displayed instead, <code>false</code> otherwise
+	 */
+	public boolean isIconPending()
+	{
+		return (icon == null) && (icon_file != null) && (getCachedIcon() == null) ;
+	}
+
+
+	/**
+	 * Start to load the icon in the background if it is not available or loading yet (main thread only).
+	 * @param resources Resources of the context displaying the icon
+	 * @param onLoaded Called on the main thread once the icon is available
+	 */
+	public void loadIcon(Resources resources, Runnable onLoaded)
+	{
+		if(!isIconPending() || icon_loading) return ;
+		icon_loading = true ;
+		IconLoader.load(this, icon_file, Math.round(48 * resources.getDisplayMetrics().density), onLoaded) ;
+	}
+
+
+	/**
+	 * Called once the icon has been loaded in the icons cache (main thread only).
+	 * @param success <code>false</code> if the file could not be read
+	 * @param icon_size Width and height of the icons in pixels
+	 */
+	void onIconLoaded(boolean success, int icon_size)
+	{
+		// Keep the placeholder if the file could not be read
+		icon_loading = false ;
+		if(!success) setIcon(IconLoader.getPlaceholder(icon_size)) ;
+	}
+
+
+	/**
+	 * Move the icon in an atlas, where it is then kept instead of the icons cache
+	 * (to call before the application is displayed).
+	 * @param resources To wrap the icon read from its file
+	 * @param atlas Atlas being filled
+	 */
+	void packIcon(Resources resources, IconAtlas atlas)
+	{
+		// Retrieve the icon, from its file if it is not in the icons cache
+		Drawable source = icon ;
+		if((source == null) && (icon_file != null))
+			{
+				Bitmap bitmap = IconCache.get(icon_file) ;
+				if(bitmap == null) bitmap = new InternalFilePNG(icon_file).readFromFile() ;
+				if(bitmap != null) source = IconCache.toDrawable(resources, bitmap) ;
+			}
+		if(source == null) return ;
+
+		// Replace it by its copy in the atlas
+		if(icon_file != null) IconCache.remove(icon_file) ;
+		setIcon(atlas.add(source)) ;
 	}
 
 
@@ -126,6 +276,25 @@ public class Application
 	 */
 	@SuppressWarnings("BooleanMethodIsAlwaysInverted")
 	public boolean start(View view)
+	{
+		Tracing.begin("Application.start") ;
+		try
+		{
+			// Count the launch to rank the application higher in the search
+			if(!startActivity(view)) return false ;
+			LaunchCounter.recordLaunch(component_info) ;
+			return true ;
+		}
+		finally { Tracing.end() ; }
+	}
+
+
+	/**
+	 * Start the activity of the application, or the default activity of its package if not found.
+	 * @param view Element from which the event originates
+	 * @return <code>true</code> if the application was found, <code>false</code> otherwise
+	 */
+	private boolean startActivity(View view)
 	{
 		// Check if the application still exists (not uninstalled or disabled)
 		Context context = view.getContext() ;
@@ -0,0 +1,297 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+
+ */
+
+// Imports
+import android.content.Context ;
+import android.content.pm.PackageManager ;
+import android.graphics.Bitmap ;
+import android.graphics.drawable.Drawable ;
+import com.vincent_falzon.discreetlauncher.Constants ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFile ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFilePNG ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileTXT ;
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.HashSet ;
+import java.util.Locale ;
+
+/**
+ * Keep the labels and icons of the applications in the internal storage, to load them again
+ * from their packages only when they have been updated (or the language, icons size or icon pack
+ * changed, including an update of the icon pack as its themed icons are costly to draw).
+ * Entries can be read and added from several threads at once.
+ */
+class ApplicationsCache
+{
+	// Constants
+	private static final int MAX_ICON_NAME = 180 ;
+
+	// Attributes
+	private final HashMap<String, String[]> index ;
+	private final HashMap<String, Long> update_times ;
+	private final ArrayList<String> new_index ;
+	private final HashSet<String> icons_files ;
+	private final String locale ;
+	private final String icon_pack ;
+	private final int icon_size ;
+	private boolean modified ;
+
+
+	/**
+	 * Constructor to load the cache from the internal storage.
+	 * @param context To get the current language and the icons size
+	 * @param icon_pack Package name and version of the selected icon pack (or <code>Constants.NONE</code>)
+	 */
+	ApplicationsCache(Context context, String icon_pack)
+	{
+		// Initializations
+		index = new HashMap<>() ;
+		update_times = new HashMap<>() ;
+		new_index = new ArrayList<>() ;
+		icons_files = new HashSet<>() ;
+		locale = Locale.getDefault().toString() ;
+		this.icon_pack = icon_pack ;
+		icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
+		modified = false ;
+
+		// Load the index of the cached applications
+		ArrayList<String> lines = new InternalFileTXT(Constants.FILE_CACHE_APPLICATIONS).readAllLines() ;
+		if(lines == null) return ;
+		for(String line : lines)
+		{
+			// Format: ComponentInfo, last update time, language, icon pack, icons size, escaped label
+			String[] entry = line.split(Constants.CACHE_SEPARATOR, 6) ;
+			if(entry.length == 6) index.put(entry[0], entry) ;
+		}
+	}
+
+
+	/**
+	 * Retrieve the last time a package was installed or updated.
+	 * @param apkManager To get the package information
+	 * @param apk Package name
+	 * @return Timestamp in milliseconds, or -1 if the package was not found
+	 */
+	long getLastUpdateTime(PackageManager apkManager, String apk)
+	{
+		// Ask the package manager only once per package
+		Long last_update ;
+		synchronized(update_times)
+		{
+			last_update = update_times.get(apk) ;
+		}
+		if(last_update != null) return last_update ;
+
+		try
+		{
+			last_update = apkManager.getPackageInfo(apk, 0).lastUpdateTime ;
+		}
+		catch(PackageManager.NameNotFoundException e)
+		{
+			last_update = -1L ;
+		}
+		synchronized(update_times)
+		{
+			update_times.put(apk, last_update) ;
+		}
+		return last_update ;
+	}
+
+
+	/**
+	 * Retrieve the label of an application if its cache entry is still valid.
+	 * @param component_info ComponentInfo of the application
+	 * @param last_update Last update time of its package
+	 * @return Cached label, or <code>null</code> if it needs to be loaded again
+	 */
+	String getLabel(String component_info, long last_update)
+	{
+		// Check if the cache entry is still valid
+		String[] entry = index.get(component_info) ;
+		if((entry == null) || (last_update < 0)) return null ;
+		if(!entry[1].equals(String.valueOf(last_update)) || !entry[2].equals(locale) || !entry[3].equals(icon_pack)
+				|| !entry[4].equals(String.valueOf(icon_size))) return null ;
+		return unescapeLabel(entry[5]) ;
+	}
+
+
+	/**
+	 * Retrieve the icon of an application from the cache.
+	 * @param component_info ComponentInfo of the application
+	 * @return Cached icon, or <code>null</code> if it cannot be loaded
+	 */
+	Bitmap getIcon(String component_info)
+	{
+		return new InternalFilePNG(getIconFileName(component_info)).readFromFile() ;
+	}
+
+
+	/**
+	 * Keep a still valid entry in the cache.
+	 * @param component_info ComponentInfo of the application
+	 */
+	synchronized void keep(String component_info)
+	{
+		String[] entry = index.get(component_info) ;
+		if(entry == null) return ;
+		new_index.add(component_info + Constants.CACHE_SEPARATOR + entry[1] + Constants.CACHE_SEPARATOR
+				+ entry[2] + Constants.CACHE_SEPARATOR + entry[3] + Constants.CACHE_SEPARATOR + entry[4] + Constants.CACHE_SEPARATOR + entry[5]) ;
+		icons_files.add(getIconFileName(component_info)) ;
+	}
+
+
+	/**
+	 * Keep all the entries which do not belong to a package, when only this package is loaded again.
+	 * @param apk Package name
+	 */
+	synchronized void keepOthers(String apk)
+	{
+		String prefix = "{" + apk + "/" ;
+		for(String component_info : index.keySet())
+			if(!component_info.startsWith(prefix)) keep(component_info) ;
+	}
+
+
+	/**
+	 * Add or replace an entry in the cache, the icon being stored at its displayed size.
+	 * @param component_info ComponentInfo of the application
+	 * @param last_update Last update time of its package
+	 * @param label Label of the application
+	 * @param icon Icon of the application
+	 * @return The icon drawn at the displayed size, or <code>null</code> if it was not stored
+	 */
+	Bitmap put(String component_info, long last_update, String label, Drawable icon)
+	{
+		// Do not cache applications which cannot be checked for updates
+		synchronized(this)
+		{
+			modified = true ;
+		}
+		if(last_update < 0) return null ;
+
+		// Draw the icon in a bitmap at the displayed size and write it to the internal storage
+		Bitmap bitmap = IconCache.rasterize(icon, icon_size) ;
+		String filename = getIconFileName(component_info) ;
+		if(!new InternalFilePNG(filename).writeToFile(bitmap)) return null ;
+
+		// Add the entry to the new index
+		synchronized(this)
+		{
+			new_index.add(component_info + Constants.CACHE_SEPARATOR + last_update + Constants.CACHE_SEPARATOR
+					+ locale + Constants.CACHE_SEPARATOR + icon_pack + Constants.CACHE_SEPARATOR + icon_size + Constants.CACHE_SEPARATOR + escapeLabel(label)) ;
+			icons_files.add(filename) ;
+		}
+		return bitmap ;
+	}
+
+
+	/**
+	 * Write the new index in the internal storage and remove the icons which are not used anymore.
+	 * @param context To list the icons files
+	 */
+	synchronized void save(Context context)
+	{
+		// Do nothing if the cache has not changed (same entries kept in the same order)
+		if(!modified && (new_index.size() == index.size())) return ;
+		new InternalFileTXT(Constants.FILE_CACHE_APPLICATIONS).writeAllLines(new_index) ;
+
+		// Remove the icons of the applications which are not in the cache anymore
+		String[] cached_icons = InternalFile.searchFilesStartingWith(context, Constants.FILE_CACHE_ICON_PREFIX) ;
+		if(cached_icons == null) return ;
+		for(String filename : cached_icons)
+			if(!icons_files.contains(filename))
+				{
+					new InternalFilePNG(filename).remove() ;
+					IconCache.remove(filename) ;
+				}
+	}
+
+
+	/**
+	 * Escape the line breaks of a label, so that it fits on a single line of the index
+	 * (the label being the last field, it can contain the separator).
+	 * @param label Label of the application
+	 * @return Label with "\\", "\n" and "\r" instead of the backslashes and line breaks
+	 */
+	private static String escapeLabel(String label)
+	{
+		return label.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r") ;
+	}
+
+
+	/**
+	 * Restore a label escaped by <code>escapeLabel()</code>.
+	 * @param escaped Label as written in the index
+	 * @return Original label
+	 */
+	private static String unescapeLabel(String escaped)
+	{
+		if(escaped.indexOf('\\') < 0) return escaped ;
+		StringBuilder label = new StringBuilder(escaped.length()) ;
+		for(int i = 0 ; i < escaped.length() ; i++)
+		{
+			char character = escaped.charAt(i) ;
+			if((character == '\\') && (i + 1 < escaped.length()))
+				{
+					i++ ;
+					character = escaped.charAt(i) ;
+					if(character == 'n') character = '\n' ;
+						else if(character == 'r') character = '\r' ;
+				}
+			label.append(character) ;
+		}
+		return label.toString() ;
+	}
+
+
+	/**
+	 * Define the name of the file containing the cached icon of an application. The characters which
+	 * cannot be used in a file name are escaped with their code ("/" to "_002f"), so that two applications
+	 * never share a file. Too long names are cut and followed by a hash of the ComponentInfo.
+	 * @param component_info ComponentInfo of the application
+	 * @return Name of the file including the extension
+	 */
+	static String getIconFileName(String component_info)
+	{
+		// Escape the characters other than letters, digits and dots, including the escape character itself
+		StringBuilder name = new StringBuilder(component_info.length() + 16) ;
+		for(int i = 0 ; i < component_info.length() ; i++)
+		{
+			char character = component_info.charAt(i) ;
+			if(((character >= 'A') && (character <= 'Z')) || ((character >= 'a') && (character <= 'z'))
+					|| ((character >= '0') && (character <= '9')) || (character == '.'))
+				name.append(character) ;
+				else name.append(String.format(Locale.ROOT, "_%04x", (int)character)) ;
+		}
+
+		// Keep the file name within the limits of the file system
+		if(name.length() > MAX_ICON_NAME)
+			{
+				name.setLength(MAX_ICON_NAME) ;
+				name.append(String.format(Locale.ROOT, "-%08x", component_info.hashCode())) ;
+			}
+		return Constants.FILE_CACHE_ICON_PREFIX + name + ".png" ;
+	}
+}
@@ -25,111 +25,884 @@ package com.vincent_falzon.discreetlauncher.core ;
 // Imports
 import android.content.Context ;
 import android.content.Intent ;
+import android.content.SharedPreferences ;
 import android.content.pm.PackageManager ;
 import android.content.pm.ResolveInfo ;
+import android.content.res.Resources ;
+import android.graphics.Bitmap ;
 import android.graphics.drawable.Drawable ;
+import android.os.Handler ;
+import android.os.Looper ;
 import androidx.core.content.ContextCompat ;
 import androidx.core.content.res.ResourcesCompat ;
+import androidx.preference.PreferenceManager ;
 import com.vincent_falzon.discreetlauncher.Constants ;
 import com.vincent_falzon.discreetlauncher.R ;
+import com.vincent_falzon.discreetlauncher.ShowDialog ;
+import com.vincent_falzon.discreetlauncher.Tracing ;
 import com.vincent_falzon.discreetlauncher.storage.* ;
 import java.util.ArrayList ;
+import java.util.Collection ;
 import java.util.Collections ;
-import java.util.Comparator ;
+import java.util.HashMap ;
+import java.util.HashSet ;
 import java.util.List ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+import java.util.concurrent.ThreadPoolExecutor ;
+import java.util.concurrent.atomic.AtomicInteger ;
 
 /**
  * Provide and manage applications lists.
  */
 public class ApplicationsList
 {
+	// Types of changes reported to the listener for a single item
+	public static final int ITEM_INSERTED = 0 ;
+	public static final int ITEM_REMOVED = 1 ;
+	public static final int ITEM_CHANGED = 2 ;
+
+	// ComponentInfo of the launcher, never hidden as it can be the only access to the menu
+	private static final String COMPONENT_LAUNCHER = "{com.vincent_falzon.discreetlauncher/com.vincent_falzon.discreetlauncher.ActivityMain}" ;
+
+	// Background thread used to build the applications lists (shared by all instances)
+	private static final ExecutorService catalogThread = Executors.newSingleThreadExecutor() ;
+
+	// Threads loading the labels and icons in parallel (Binder calls and images decoding)
+	private static final ThreadPoolExecutor loadingWorkers = (ThreadPoolExecutor)Executors.newFixedThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()))) ;
+
 	// Attributes
-	private final ArrayList<Application> drawer ;
-	private final ArrayList<Application> hidden ;
+	private ArrayList<Application> drawer ;
+	private ArrayList<Application> hidden ;
+	private HashMap<String, Application> index ;
 	private final ArrayList<Application> favorites ;
+	private Search search ;
+	private final Handler mainThread ;
+	private final AtomicInteger last_update_id ;
+	private Future<?> pendingUpdate ;
+	private final ArrayList<Runnable> afterUpdate ;
+	private UpdateListener listener ;
+
+	// Views derived from the drawer, built on demand and kept until the lists change
+	private List<Folder> foldersView ;
+	private List<Application> notInFoldersView ;
+	private List<Application> applicationsView ;
+	private List<Application> applicationsWithFoldersView ;
+	private SearchIndex searchIndex ;
+	private int views_version ;
+	private int search_index_version ;
+	private final ArrayList<Runnable> searchIndexWaiters ;
 
 
 	/**
-	 * Constructor to create the applications list.
+	 * Constructor to create the applications list (must be called from the main thread).
 	 */
 	public ApplicationsList()
 	{
 		drawer = new ArrayList<>() ;
 		hidden = new ArrayList<>() ;
+		index = new HashMap<>() ;
 		favorites = new ArrayList<>() ;
+		mainThread = new Handler(Looper.getMainLooper()) ;
+		last_update_id = new AtomicInteger(0) ;
+		pendingUpdate = null ;
+		afterUpdate = new ArrayList<>() ;
+		listener = null ;
+		search_index_version = -1 ;
+		searchIndexWaiters = new ArrayList<>() ;
 	}
 
 
 	/**
-	 * Update both the complete applications list and the favorite applications list.
+	 * Define how many threads can load the labels and icons at the same time (by default, one per
+	 * processor up to 4). The pool is resized in place, so that an update in progress is not affected.
+	 * @param threads Number of threads (at least 1)
+	 */
+	public static synchronized void setLoadingThreads(int threads)
+	{
+		// Change the sizes in an order keeping the core size below the maximum size
+		threads = Math.max(1, threads) ;
+		if(threads > loadingWorkers.getMaximumPoolSize())
+			{
+				loadingWorkers.setMaximumPoolSize(threads) ;
+				loadingWorkers.setCorePoolSize(threads) ;
+			}
+			else
+			{
+				loadingWorkers.setCorePoolSize(threads) ;
+				loadingWorkers.setMaximumPoolSize(threads) ;
+			}
+	}
+
+
+	/**
+	 * Set the listener to inform when a new version of the lists has been published.
+	 * @param listener Informed on the main thread, or <code>null</code> to remove it
+	 */
+	public void setUpdateListener(UpdateListener listener)
+	{
+		this.listener = listener ;
+	}
+
+
+	/**
+	 * Start to update both the complete applications list and the favorite applications list.
+	 * The lists are built in the background and published on the main thread once ready,
+	 * any update still in progress is cancelled as its result would be outdated.
 	 * @param context To get the package manager, load icon pack and display a toast
 	 */
-	public void update(Context context)
+	public void update(final Context context)
+	{
+		// Cancel the update in progress, if any
+		final int update_id = last_update_id.incrementAndGet() ;
+		if(pendingUpdate != null) pendingUpdate.cancel(true) ;
+
+		// Load the icon pack on the main thread as it may display alerts
+		final IconPack iconPack = new IconPack(context, context.getPackageManager()) ;
+		SharedPreferences settings = PreferenceManager.getDefaultSharedPreferences(context) ;
+		final boolean atlas_icons = settings.getBoolean(Constants.ICON_ATLAS, false) ;
+		final boolean lazy_icons = !atlas_icons && settings.getBoolean(Constants.LAZY_ICONS, false) ;
+
+		// Build the new lists in the background, without keeping the activity until they are ready
+		final Context applicationContext = context.getApplicationContext() ;
+		pendingUpdate = catalogThread.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					Tracing.begin("ApplicationsList.update") ;
+					try { buildLists(applicationContext, iconPack, lazy_icons, atlas_icons, update_id) ; }
+					catch(Throwable e)
+					{
+						// Keep the previous lists (even after running out of memory while drawing the icons) and inform the user on the main thread
+						mainThread.post(new Runnable()
+							{
+								@Override
+								public void run()
+								{
+									abortUpdate(applicationContext, update_id) ;
+								}
+							}) ;
+					}
+					finally { Tracing.end() ; }
+				}
+			}) ;
+	}
+
+
+	/**
+	 * End an update which failed, keeping the previous lists (to call from the main thread).
+	 * @param context To display a toast
+	 * @param update_id Identifier of the update
+	 */
+	private void abortUpdate(Context context, int update_id)
+	{
+		// Ignore the failure if a more recent update has been requested meanwhile
+		if(update_id != last_update_id.get()) return ;
+		pendingUpdate = null ;
+		ShowDialog.toast(context, R.string.error_applications_list_update) ;
+
+		// Let the previous lists be displayed and the actions waiting for the update be performed
+		if(listener != null) listener.onApplicationsListUpdated() ;
+		runAfterUpdateActions() ;
+	}
+
+
+	/**
+	 * Check if the lists are being built in the background.
+	 * @return <code>true</code> if a full update has not been published yet, <code>false</code> otherwise
+	 */
+	public boolean isUpdating()
+	{
+		return pendingUpdate != null ;
+	}
+
+
+	/**
+	 * Perform an action once the complete update in progress has been published, or immediately
+	 * if there is none (to call from the main thread).
+	 * @param action To run on the main thread after the listener has been informed
+	 */
+	public void runAfterUpdate(Runnable action)
+	{
+		if(pendingUpdate == null) action.run() ;
+			else afterUpdate.add(action) ;
+	}
+
+
+	/**
+	 * Check if an update has been cancelled (replaced by a more recent one).
+	 * @param update_id Identifier of the update
+	 * @return <code>true</code> if cancelled, <code>false</code> otherwise
+	 */
+	private boolean isCancelled(int update_id)
+	{
+		return (update_id != last_update_id.get()) || Thread.currentThread().isInterrupted() ;
+	}
+
+
+	/**
+	 * Build new applications lists (to call from the background thread).
+	 * @param context To get the package manager and the icons
+	 * @param iconPack Icon pack loaded on the main thread
+	 * @param lazy_icons To load the cached icons only when they are displayed for the first time
+	 * @param atlas_icons To pack the icons in a few shared bitmaps (all icons need to be loaded)
+	 * @param update_id Identifier of the update, used to detect cancellation
+	 */
+	private void buildLists(final Context context, final IconPack iconPack, final boolean lazy_icons, final boolean atlas_icons, final int update_id)
 	{
 		// Initializations
 		PackageManager apkManager = context.getPackageManager() ;
-		drawer.clear() ;
+		final ArrayList<Application> newDrawer = new ArrayList<>() ;
 
 		// Retrieve the list of applications that can be launched by the user
-		Intent intent = new Intent(Intent.ACTION_MAIN) ;
-		intent.addCategory(Intent.CATEGORY_LAUNCHER) ;
-		List<ResolveInfo> apkManagerList = apkManager.queryIntentActivities(intent, 0) ;
+		List<ResolveInfo> apkManagerList ;
+		Tracing.begin("update:query") ;
+		try
+		{
+			Intent intent = new Intent(Intent.ACTION_MAIN) ;
+			intent.addCategory(Intent.CATEGORY_LAUNCHER) ;
+			apkManagerList = apkManager.queryIntentActivities(intent, 0) ;
+		}
+		finally { Tracing.end() ; }
 
 		// Define the icons size in pixels
 		int icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
 
-		// Browse the APK manager list and store the data of each application in the main list
-		IconPack iconPack = new IconPack(context, apkManager) ;
-		Drawable icon ;
-		String package_name = context.getPackageName() ;
-		for(ResolveInfo entry : apkManagerList)
+		// Load the label and icon of each application in parallel, keeping the APK manager order
+		final ApplicationsCache cache = new ApplicationsCache(context, iconPack.getPackVersion()) ;
+		Tracing.begin("update:icons") ;
+		try { if(!loadApplications(context, iconPack, cache, lazy_icons, apkManagerList, newDrawer, update_id)) return ; }
+		finally { Tracing.end() ; }
+		if(isCancelled(update_id)) return ;
+
+		// Save the cache for the next update
+		cache.save(context) ;
+
+		// Add the shortcuts to the list as applications
+		Tracing.begin("update:shortcuts") ;
+		try { loadShortcuts(context, newDrawer) ; }
+		finally { Tracing.end() ; }
+
+		// Sort the applications list in alphabetic order based on display name
+		Tracing.begin("update:sort") ;
+		try { Collections.sort(newDrawer) ; }
+		finally { Tracing.end() ; }
+		if(isCancelled(update_id)) return ;
+
+		// Prepare folders according to files
+		Tracing.begin("update:folders") ;
+		try { prepareFolders(context, newDrawer) ; }
+		finally { Tracing.end() ; }
+
+		// Add the search icon on top of the list, drawn once in a bitmap like the other icons
+		Drawable searchIcon = ContextCompat.getDrawable(context, R.drawable.icon_search) ;
+		searchIcon = IconCache.toDrawable(context.getResources(), IconCache.rasterize(searchIcon, icon_size)) ;
+		newDrawer.add(0, new Search(context.getString(R.string.search_icon_title), searchIcon)) ;
+
+		// Hide application based on the internal file
+		final ArrayList<Application> newHidden ;
+		Tracing.begin("update:hidden") ;
+		try { newHidden = manageHiddenApplications(newDrawer) ; }
+		finally { Tracing.end() ; }
+		if(isCancelled(update_id)) return ;
+
+		// Pack the displayed icons in an atlas if requested
+		int packed_size = 0 ;
+		if(atlas_icons)
+			{
+				Tracing.begin("update:atlas") ;
+				try { packed_size = packIcons(newDrawer, context.getResources(), icon_size) ; }
+				finally { Tracing.end() ; }
+			}
+		final int atlas_size = packed_size ;
+
+		// Index the applications by ComponentInfo
+		final HashMap<String, Application> newIndex ;
+		Tracing.begin("update:index") ;
+		try { newIndex = buildIndex(newDrawer, true) ; }
+		finally { Tracing.end() ; }
+
+		// Publish the new lists on the main thread
+		mainThread.post(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					publishLists(newDrawer, newHidden, newIndex, atlas_size, update_id) ;
+				}
+			}) ;
+	}
+
+
+	/**
+	 * Load the label and icon of each application in parallel, keeping the APK manager order.
+	 * @param context To get the package manager and the icons
+	 * @param iconPack Icon pack loaded on the main thread
+	 * @param cache Labels and icons cache
+	 * @param lazy_icons To load the cached icons only when they are displayed for the first time
+	 * @param apkManagerList Activities that can be launched by the user
+	 * @param drawer Applications drawer being built, where to add the loaded applications
+	 * @param update_id Identifier of the update, used to detect cancellation
+	 * @return <code>false</code> if the update has been cancelled, <code>true</code> otherwise
+	 */
+	private boolean loadApplications(final Context context, final IconPack iconPack, final ApplicationsCache cache, final boolean lazy_icons, List<ResolveInfo> apkManagerList, ArrayList<Application> drawer, final int update_id)
+	{
+		// Submit the loading of each application
+		final Application[] applications = new Application[apkManagerList.size()] ;
+		ArrayList<Future<?>> tasks = new ArrayList<>(apkManagerList.size()) ;
+		for(int i = 0 ; i < apkManagerList.size() ; i++)
 		{
-			// Load the application icon
-			if(iconPack.isLoaded())
+			final int position = i ;
+			final ResolveInfo entry = apkManagerList.get(i) ;
+			tasks.add(loadingWorkers.submit(new Runnable()
 				{
-					// Retrieve the icon in the pack, use the real icon if not found
-					icon = iconPack.searchIcon(entry.activityInfo.packageName, entry.activityInfo.name) ;
-					if(icon == null) icon = entry.loadIcon(apkManager) ;
+					@Override
+					public void run()
+					{
+						// Skip the loading if a more recent update has been requested
+						if(!isCancelled(update_id)) applications[position] = loadApplication(context, iconPack, cache, lazy_icons, entry) ;
+					}
+				})) ;
+		}
+
+		// Wait for all applications to be loaded and add them to the drawer
+		for(int i = 0 ; i < tasks.size() ; i++)
+		{
+			try
+			{
+				tasks.get(i).get() ;
+				if(applications[i] != null) drawer.add(applications[i]) ;
+			}
+			catch(InterruptedException e)
+			{
+				// The update has been cancelled, stop the remaining tasks
+				for(Future<?> task : tasks) task.cancel(true) ;
+				return false ;
+			}
+			catch(ExecutionException e)
+			{
+				// Ignore the application which could not be loaded
+			}
+		}
+		return true ;
+	}
+
+
+	/**
+	 * Pack the icons of the drawer and folders in a new atlas, in the order they are displayed.
+	 * The applications updated later on their own keep separate icons until the next complete update.
+	 * @param drawer Applications drawer being built
+	 * @param resources To wrap the icons
+	 * @param icon_size Width and height of the icons in pixels
+	 * @return Size of the pages of the atlas in bytes, 0 if the icons are kept separate
+	 */
+	private static int packIcons(ArrayList<Application> drawer, Resources resources, int icon_size)
+	{
+		// List the applications to pack, including the content of folders
+		ArrayList<Application> applications = new ArrayList<>() ;
+		ArrayList<Folder> folders = new ArrayList<>() ;
+		for(Application application : drawer)
+		{
+			if(application instanceof Search) continue ;
+			if(application instanceof Folder)
+				{
+					folders.add((Folder)application) ;
+					applications.addAll(((Folder)application).getApplications()) ;
 				}
-				else icon = entry.loadIcon(apkManager) ;
-			icon.setBounds(0, 0, icon_size, icon_size) ;
+				else applications.add(application) ;
+		}
+
+		// Keep separate icons if the atlas would take more than its part of the icons budget
+		if(IconAtlas.getSize(icon_size, applications.size() + 1) > IconCache.getAtlasBudget()) return 0 ;
+
+		// Pack the icons, and the folder icon shared by all folders
+		IconAtlas atlas = new IconAtlas(icon_size, applications.size() + 1) ;
+		for(Application application : applications) application.packIcon(resources, atlas) ;
+		if(folders.isEmpty()) return atlas.getSize() ;
+		Bitmap folder_bitmap = ((FolderIcon)folders.get(0).getIcon(resources)).getFolderBitmap() ;
+		if(folder_bitmap == null) return atlas.getSize() ;
+		Drawable folder_base = atlas.add(IconCache.toDrawable(resources, folder_bitmap)) ;
+		for(Folder folder : folders) ((FolderIcon)folder.getIcon(resources)).setBase(folder_base) ;
+		return atlas.getSize() ;
+	}
+
+
+	/**
+	 * Load an application with its label and icon (can be called from several threads at once).
+	 * @param context To get the package manager and the icons
+	 * @param iconPack Icon pack loaded on the main thread
+	 * @param cache Labels and icons cache, or <code>null</code> to load them from the package
+	 * @param lazy_icons To load a cached icon only when it is displayed for the first time
+	 * @param entry Activity of the application as provided by the APK manager
+	 * @return The loaded application
+	 */
+	private static Application loadApplication(Context context, IconPack iconPack, ApplicationsCache cache, boolean lazy_icons, ResolveInfo entry)
+	{
+		// Initializations
+		PackageManager apkManager = context.getPackageManager() ;
+		int icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
+		String apk = entry.activityInfo.packageName ;
+		String component_info = "{" + apk + "/" + entry.activityInfo.name + "}" ;
+		String label = null ;
+		Drawable icon = null ;
+		long last_update = -1 ;
+
+		// Try to retrieve the label and icon from the cache if the package has not changed
+		String icon_file = ApplicationsCache.getIconFileName(component_info) ;
+		Bitmap bitmap = null ;
+		if(cache != null)
+			{
+				last_update = cache.getLastUpdateTime(apkManager, apk) ;
+				label = cache.getLabel(component_info, last_update) ;
+				if(label != null)
+					{
+						// Let the icon be loaded when it is displayed for the first time if requested
+						if(lazy_icons && new InternalFilePNG(icon_file).exists())
+							{
+								cache.keep(component_info) ;
+								return createApplication(context, label, entry, null, icon_file) ;
+							}
+						bitmap = cache.getIcon(component_info) ;
+					}
+			}
+		if(bitmap != null) cache.keep(component_info) ;
+			else
+			{
+				// Retrieve the icon in the pack, use the real icon themed by the pack if not found
+				if(iconPack.isLoaded()) icon = iconPack.searchIcon(apk, entry.activityInfo.name) ;
+				if(icon == null) icon = iconPack.themeIcon(component_info, entry.loadIcon(apkManager)) ;
+
+				// Load the application label and store both in the cache
+				label = entry.loadLabel(apkManager).toString() ;
+				if(cache != null) bitmap = cache.put(component_info, last_update, label, icon) ;
+			}
+
+		// Keep the icon in the icons cache if it can be reloaded from the internal storage
+		if(bitmap != null)
+			{
+				IconCache.put(icon_file, bitmap) ;
+				return createApplication(context, label, entry, null, icon_file) ;
+			}
+
+		// Otherwise draw it once in a bitmap at the displayed size, so that the drawer only copies it
+		return createApplication(context, label, entry, IconCache.toDrawable(context.getResources(), IconCache.rasterize(icon, icon_size)), null) ;
+	}
+
+
+	/**
+	 * Create an application, or the menu access if this is the launcher itself.
+	 * @param context To get the package name of the launcher
+	 * @param label Label of the application
+	 * @param entry Activity of the application as provided by the APK manager
+	 * @param icon Icon kept by the application, or <code>null</code> to use the icons cache
+	 * @param icon_file Name of the icon in the icons cache and internal storage, or <code>null</code>
+	 * @return The created application
+	 */
+	private static Application createApplication(Context context, String label, ResolveInfo entry, Drawable icon, String icon_file)
+	{
+		// Check if the application is the launcher to provide menu access using its icon
+		Application application ;
+		String apk = entry.activityInfo.packageName ;
+		if(apk.equals(context.getPackageName())) application = new Menu(label, entry.activityInfo.name, apk, icon) ;
+			else application = new Application(label, entry.activityInfo.name, apk, icon) ;
+		if(icon_file != null) application.setIconFile(icon_file) ;
+		return application ;
+	}
+
+
+	/**
+	 * Replace the current lists by the new ones in a single step (to call from the main thread).
+	 * @param newDrawer New content of the applications drawer
+	 * @param newHidden New list of hidden applications
+	 * @param newIndex New index of the drawer applications, folders and their content
+	 * @param atlas_size Size of the atlas containing the new icons in bytes, 0 if there is none
+	 * @param update_id Identifier of the update, used to detect cancellation
+	 */
+	private void publishLists(ArrayList<Application> newDrawer, ArrayList<Application> newHidden, HashMap<String, Application> newIndex, int atlas_size, int update_id)
+	{
+		// Ignore the result if a more recent update has been requested meanwhile
+		if(update_id != last_update_id.get()) return ;
+		pendingUpdate = null ;
+
+		// Swap the lists and update the favorites according to the new drawer
+		keepSearch(newDrawer, newHidden, newIndex) ;
+		drawer = newDrawer ;
+		hidden = newHidden ;
+		index = newIndex ;
+		IconCache.setAtlasSize(atlas_size) ;
+		invalidateViews() ;
+		Tracing.begin("update:favorites") ;
+		try { updateFavorites() ; }
+		finally { Tracing.end() ; }
+
+		// Inform the listener, then perform the actions waiting for this update
+		if(listener != null) listener.onApplicationsListUpdated() ;
+		runAfterUpdateActions() ;
+	}
 
-			// Check if the application is the launcher to provide menu access using its icon
-			Application application ;
-			if(entry.activityInfo.packageName.equals(package_name))
-					application = new Menu(entry.loadLabel(apkManager).toString(), entry.activityInfo.name, entry.activityInfo.packageName, icon) ;
-				else application = new Application(entry.loadLabel(apkManager).toString(), entry.activityInfo.name, entry.activityInfo.packageName, icon) ;
 
-			// Add the application to the list
-			drawer.add(application) ;
+	/**
+	 * Perform the actions waiting for the end of the complete update (to call from the main thread).
+	 */
+	private void runAfterUpdateActions()
+	{
+		ArrayList<Runnable> actions = new ArrayList<>(afterUpdate) ;
+		afterUpdate.clear() ;
+		for(Runnable action : actions) action.run() ;
+	}
+
+
+	/**
+	 * Put the search of the previous lists in the new ones, with its new name and icon, so that its
+	 * popup stays ready across updates (to call from the main thread).
+	 * @param newDrawer New content of the applications drawer
+	 * @param newHidden New list of hidden applications
+	 * @param newIndex New index of the drawer applications, folders and their content
+	 */
+	private void keepSearch(ArrayList<Application> newDrawer, ArrayList<Application> newHidden, HashMap<String, Application> newIndex)
+	{
+		ArrayList<ArrayList<Application>> lists = new ArrayList<>() ;
+		lists.add(newDrawer) ;
+		lists.add(newHidden) ;
+		for(ArrayList<Application> list : lists)
+			for(int i = 0 ; i < list.size() ; i++)
+				if(list.get(i) instanceof Search)
+					{
+						// Keep the first search created, and replace the following ones by it
+						Search newSearch = (Search)list.get(i) ;
+						if(search == null)
+							{
+								search = newSearch ;
+								return ;
+							}
+						search.updateFrom(newSearch) ;
+						list.set(i, search) ;
+						if(newIndex.get(search.getComponentInfo()) == newSearch) newIndex.put(search.getComponentInfo(), search) ;
+						return ;
+					}
+	}
+
+
+	/**
+	 * Release the popup of the search kept across updates, whether it is displayed or hidden,
+	 * as it would keep the destroyed activity in memory (to call from the main thread).
+	 */
+	public void releaseSearch()
+	{
+		if(search != null) search.releasePopup() ;
+	}
+
+
+	/**
+	 * Start to update the applications of a single package, after it was installed, removed,
+	 * updated or changed. The applications are loaded in the background and the changes are
+	 * applied to the current lists on the main thread, unless a complete update started meanwhile.
+	 * @param context To get the package manager, load icon pack and display a toast
+	 * @param apk Package name
+	 */
+	public void updatePackage(final Context context, final String apk)
+	{
+		// Load the icon pack on the main thread as it may display alerts
+		final int update_id = last_update_id.get() ;
+		final IconPack iconPack = new IconPack(context, context.getPackageManager()) ;
+		SharedPreferences settings = PreferenceManager.getDefaultSharedPreferences(context) ;
+		final boolean lazy_icons = !settings.getBoolean(Constants.ICON_ATLAS, false) && settings.getBoolean(Constants.LAZY_ICONS, false) ;
+
+		// Load the applications of the package in the background (after any pending update)
+		catalogThread.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try { loadPackage(context, iconPack, lazy_icons, apk, update_id) ; }
+					catch(Throwable e)
+					{
+						// Rebuild the complete lists on the main thread, unless it is already done meanwhile
+						mainThread.post(new Runnable()
+							{
+								@Override
+								public void run()
+								{
+									if(update_id == last_update_id.get()) update(context) ;
+								}
+							}) ;
+					}
+				}
+			}) ;
+	}
+
+
+	/**
+	 * Load the applications of a single package (to call from the background thread).
+	 * @param context To get the package manager and the icons
+	 * @param iconPack Icon pack loaded on the main thread
+	 * @param lazy_icons To load the cached icons only when they are displayed for the first time
+	 * @param apk Package name
+	 * @param update_id Identifier of the lists to which the changes apply
+	 */
+	private void loadPackage(final Context context, IconPack iconPack, boolean lazy_icons, final String apk, final int update_id)
+	{
+		// Retrieve the activities of the package that can be launched by the user (none if removed)
+		if(isCancelled(update_id)) return ;
+		PackageManager apkManager = context.getPackageManager() ;
+		Intent intent = new Intent(Intent.ACTION_MAIN) ;
+		intent.addCategory(Intent.CATEGORY_LAUNCHER) ;
+		intent.setPackage(apk) ;
+		List<ResolveInfo> apkManagerList = apkManager.queryIntentActivities(intent, 0) ;
+
+		// Load the label and icon of each application, replacing only the cache entries of the package
+		// (its icons are not packed in the atlas until the next complete update)
+		ApplicationsCache cache = new ApplicationsCache(context, iconPack.getPackVersion()) ;
+		cache.keepOthers(apk) ;
+		final HashMap<String, Application> applications = new HashMap<>() ;
+		for(ResolveInfo entry : apkManagerList)
+		{
+			Application application = loadApplication(context, iconPack, cache, lazy_icons, entry) ;
+			applications.put(application.getComponentInfo(), application) ;
 		}
+		cache.save(context) ;
 
-		// Add the shortcuts to the list as applications
-		loadShortcuts(context) ;
+		// Apply the changes on the main thread
+		mainThread.post(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					applyPackage(context, apk, applications, update_id) ;
+				}
+			}) ;
+	}
 
-		// Sort the applications list in alphabetic order based on display name
-		Collections.sort(drawer, new Comparator<Application>()
+
+	/**
+	 * Apply the changes of a single package to the current lists (to call from the main thread).
+	 * A new drawer is built from the current one, then the listener is informed of each change.
+	 * @param context To create the folders icons
+	 * @param apk Package name
+	 * @param applications Current applications of the package, by ComponentInfo
+	 * @param update_id Identifier of the lists to which the changes apply
+	 */
+	private void applyPackage(Context context, String apk, HashMap<String, Application> applications, int update_id)
+	{
+		// Ignore the changes if a complete update has been requested meanwhile (it includes them)
+		if(update_id != last_update_id.get()) return ;
+		ArrayList<Application> newDrawer = new ArrayList<>(drawer) ;
+		ArrayList<Application> newHidden = new ArrayList<>(hidden) ;
+		ArrayList<int[]> drawerChanges = new ArrayList<>() ;
+		ArrayList<int[]> favoritesChanges = new ArrayList<>() ;
+		HashMap<String, Application> remaining = new HashMap<>(applications) ;
+		boolean reload_favorites = false ;
+
+		// Replace or remove the applications of the package from the drawer and folders
+		for(int i = newDrawer.size() - 1 ; i >= 0 ; i--)
 		{
-			@Override
-			public int compare(Application application1, Application application2)
+			Application application = newDrawer.get(i) ;
+			if(application instanceof Folder)
+				{
+					// Update the content and icon of a copy of the folder if needed, as it is still displayed
+					Folder folder = new Folder((Folder)application) ;
+					if(replaceInList(folder.getApplications(), apk, remaining, null))
+						{
+							folder.sortFolder() ;
+							updateFolderIcon(context, folder) ;
+							newDrawer.set(i, folder) ;
+							replaceFavorite(application, folder, favoritesChanges) ;
+							drawerChanges.add(new int[] { ITEM_CHANGED, i }) ;
+						}
+					continue ;
+				}
+			if(!application.getApk().equals(apk)) continue ;
+
+			// Replace the application at the same place if its label did not change
+			Application replacement = remaining.get(application.getComponentInfo()) ;
+			if((replacement != null) && replacement.getDisplayName().equals(application.getDisplayName()))
+				{
+					newDrawer.set(i, replacement) ;
+					remaining.remove(application.getComponentInfo()) ;
+					drawerChanges.add(new int[] { ITEM_CHANGED, i }) ;
+				}
+				else
+				{
+					newDrawer.remove(i) ;
+					drawerChanges.add(new int[] { ITEM_REMOVED, i }) ;
+				}
+		}
+
+		// Replace or remove the applications of the package from the hidden list
+		replaceInList(newHidden, apk, remaining, null) ;
+		for(Application application : newHidden) if(application.getApk().equals(apk)) application.setIcon(null) ;
+
+		// Replace or remove the applications of the package from the favorites
+		replaceInList(favorites, apk, applications, favoritesChanges) ;
+
+		// Place the new applications according to the files, in the same order as a complete update
+		if(remaining.size() > 0)
 			{
-				return application1.getDisplayName().compareToIgnoreCase(application2.getDisplayName()) ;
+				// Add the applications to their folder, if any
+				for(int i = 0 ; i < newDrawer.size() ; i++)
+				{
+					if(!(newDrawer.get(i) instanceof Folder)) continue ;
+					Folder folder = (Folder)newDrawer.get(i) ;
+					ArrayList<String> folder_file = new InternalFileTXT(folder.getFileName()).readAllLines() ;
+					if(folder_file == null) continue ;
+					ArrayList<Application> added = new ArrayList<>() ;
+					for(String line : folder_file)
+					{
+						Application application = remaining.remove(line) ;
+						if(application != null) added.add(application) ;
+					}
+					if(added.isEmpty()) continue ;
+
+					// Change a copy of the folder if it is still displayed
+					if(drawer.contains(folder))
+						{
+							Folder copy = new Folder(folder) ;
+							replaceFavorite(folder, copy, favoritesChanges) ;
+							folder = copy ;
+						}
+					for(Application application : added) folder.addToFolder(application) ;
+					folder.sortFolder() ;
+					updateFolderIcon(context, folder) ;
+					newDrawer.set(i, folder) ;
+					drawerChanges.add(new int[] { ITEM_CHANGED, i }) ;
+				}
+
+				// Add the applications to hide in the hidden list, except the launcher itself
+				ArrayList<String> hidden_file = new InternalFileTXT(Constants.FILE_HIDDEN).readAllLines() ;
+				if(hidden_file != null)
+					for(String line : hidden_file)
+					{
+						if(line.equals(COMPONENT_LAUNCHER)) continue ;
+						Application application = remaining.remove(line) ;
+						if(application == null) continue ;
+						application.setIcon(null) ;
+						newHidden.add(application) ;
+					}
+
+				// Insert the other applications in the drawer according to the alphabetic order
+				for(Application application : remaining.values())
+				{
+					int position = findInsertionPosition(newDrawer, application) ;
+					newDrawer.add(position, application) ;
+					drawerChanges.add(new int[] { ITEM_INSERTED, position }) ;
+				}
+
+				// Check if the new applications were in the favorites (for example after a reinstallation)
+				ArrayList<String> favorites_file = new InternalFileTXT(Constants.FILE_FAVORITES).readAllLines() ;
+				if(favorites_file != null)
+					for(String line : favorites_file)
+						if(applications.containsKey(line) && !favorites.contains(applications.get(line)))
+							{
+								reload_favorites = true ;
+								break ;
+							}
 			}
-		}) ;
 
-		// Prepare folders according to files
-		prepareFolders(context) ;
+		// Publish the new lists
+		drawer = newDrawer ;
+		hidden = newHidden ;
+		index = buildIndex(newDrawer, true) ;
+		invalidateViews() ;
+		if(reload_favorites)
+			{
+				// Read again the favorites order from the file and refresh everything
+				updateFavorites() ;
+				if(listener != null) listener.onApplicationsListUpdated() ;
+				return ;
+			}
 
-		// Add the search icon on top of the list
-		Drawable searchIcon = ContextCompat.getDrawable(context, R.drawable.icon_search) ;
-		searchIcon.setBounds(0, 0, icon_size, icon_size) ;
-		drawer.add(0, new Search(context.getString(R.string.search_icon_title), searchIcon)) ;
+		// Inform the listener of each change, in the order they were applied
+		if(listener == null) return ;
+		for(int[] change : drawerChanges) listener.onDrawerItemChanged(change[0], change[1]) ;
+		for(int[] change : favoritesChanges) listener.onFavoritesItemChanged(change[0], change[1]) ;
+	}
+
+
+	/**
+	 * Replace a folder by its updated copy in the favorites, if it is there.
+	 * @param folder Folder currently displayed
+	 * @param copy Updated copy of the folder
+	 * @param changes Where to report the change
+	 */
+	private void replaceFavorite(Application folder, Folder copy, ArrayList<int[]> changes)
+	{
+		int position = favorites.indexOf(folder) ;
+		if(position < 0) return ;
+		favorites.set(position, copy) ;
+		changes.add(new int[] { ITEM_CHANGED, position }) ;
+	}
+
+
+	/**
+	 * Replace or remove the applications of a package in a list.
+	 * @param list List to update
+	 * @param apk Package name
+	 * @param applications Current applications of the package, consumed when used as replacement
+	 * @param changes Where to report the changes, or <code>null</code> if not needed
+	 * @return <code>true</code> if the list has changed, <code>false</code> otherwise
+	 */
+	private static boolean replaceInList(ArrayList<Application> list, String apk, HashMap<String, Application> applications, ArrayList<int[]> changes)
+	{
+		boolean changed = false ;
+		for(int i = list.size() - 1 ; i >= 0 ; i--)
+		{
+			if(!list.get(i).getApk().equals(apk)) continue ;
+			changed = true ;
+			Application replacement = applications.get(list.get(i).getComponentInfo()) ;
+			if(replacement != null)
+				{
+					list.set(i, replacement) ;
+					if(changes == null) applications.remove(replacement.getComponentInfo()) ;
+						else changes.add(new int[] { ITEM_CHANGED, i }) ;
+				}
+				else
+				{
+					list.remove(i) ;
+					if(changes != null) changes.add(new int[] { ITEM_REMOVED, i }) ;
+				}
+		}
+		return changed ;
+	}
 
-		// Hide application based on the internal file
-		manageHiddenApplications() ;
 
-		// Update the favorites applications list
-		updateFavorites() ;
+	/**
+	 * Create a new icon for a folder, showing the number of applications inside.
+	 * @param context To get the icon
+	 * @param folder Folder to update
+	 */
+	private static void updateFolderIcon(Context context, Folder folder)
+	{
+		int icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
+		Drawable icon = new FolderIcon(context.getResources(), folder.getApplications().size()) ;
+		icon.setBounds(0, 0, icon_size, icon_size) ;
+		folder.setIcon(icon) ;
+	}
+
+
+	/**
+	 * Find where an application should be inserted in a drawer to keep the alphabetic order.
+	 * @param drawer Applications drawer, starting with the search and the folders
+	 * @param application Application to insert
+	 * @return Position of the insertion
+	 */
+	private static int findInsertionPosition(ArrayList<Application> drawer, Application application)
+	{
+		// Skip the search and the folders at the beginning of the drawer
+		int low = 0 ;
+		while((low < drawer.size()) && ((drawer.get(low) instanceof Search) || (drawer.get(low) instanceof Folder))) low++ ;
+
+		// Search the position by dichotomy
+		int high = drawer.size() ;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1 ;
+			if(drawer.get(middle).compareTo(application) <= 0) low = middle + 1 ;
+				else high = middle ;
+		}
+		return low ;
 	}
 
 
@@ -144,34 +917,29 @@ public class ApplicationsList
 		if(favorites_file == null) return ;
 
 		// Convert the favorites from the name format to ComponentInfo format if needed
-		favorites_file = convertComponentInfo(Constants.FILE_FAVORITES, favorites_file) ;
+		favorites_file = convertComponentInfo(Constants.FILE_FAVORITES, favorites_file, index.values()) ;
 
-		// Browse the internal file
-		for(String line : favorites_file)
-		{
-			// Search the ComponentInfo in the applications list
-			for(Application application : getApplications(true))
-				if(application.getComponentInfo().equals(line))
-					{
-						// Add the application to the favorites and move to the next line
-						if(!favorites.contains(application)) favorites.add(application) ;
-						break ;
-					}
-		}
+		// Search each ComponentInfo of the file in the index (duplicates are ignored)
+		resolve(favorites_file, index, new HashSet<Application>(), favorites) ;
 	}
 
 
 	/**
 	 * Prepare folders according to the folders files.
 	 * @param context To get the icon
+	 * @param drawer Applications drawer being built
 	 */
-	private void prepareFolders(Context context)
+	private void prepareFolders(Context context, ArrayList<Application> drawer)
 	{
 		// Initializations
 		String[] folders_files = InternalFile.searchFilesStartingWith(context, Constants.FILE_FOLDER_PREFIX) ;
 		if(folders_files == null) return ;
 		int icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
 
+		// Index the applications by ComponentInfo and keep track of the ones moved in folders
+		HashMap<String, Application> applications = buildIndex(drawer, false) ;
+		HashSet<Application> moved = new HashSet<>() ;
+
 		// Browse the name of all folders files
 		ArrayList<Folder> folders = new ArrayList<>() ;
 		for(String filename : folders_files)
@@ -181,28 +949,17 @@ public class ApplicationsList
 			if(folder_file == null) continue ;
 
 			// Convert the folder from the name format to ComponentInfo format if needed
-			folder_file = convertComponentInfo(filename, folder_file) ;
+			folder_file = convertComponentInfo(filename, folder_file, applications.values()) ;
 
 			// Retrieve the name of the folder and create it
 			String folder_name = filename.replace(Constants.FILE_FOLDER_PREFIX, "").replace(".txt", "") ;
 			Folder folder = new Folder(folder_name, null) ;
 
-			// Browse the lines of the file to get the list of applications to put in the folder
-			for(String component_info : folder_file)
-			{
-				// Search the internal name in the applications list
-				for(Application application : drawer)
-					if(application.getComponentInfo().equals(component_info))
-						{
-							// Move the application in the folder
-							folder.addToFolder(application) ;
-							drawer.remove(application) ;
-							break ;
-						}
-			}
+			// Move the applications of the file in the folder if they are not already in another one
+			resolve(folder_file, applications, moved, folder.getApplications()) ;
 
 			// Create the folder icon with the number of applications inside
-			Drawable icon = new FolderIcon(context, folder.getApplications().size()) ;
+			Drawable icon = new FolderIcon(context.getResources(), folder.getApplications().size()) ;
 			icon.setBounds(0, 0, icon_size, icon_size) ;
 			folder.setIcon(icon) ;
 
@@ -211,64 +968,58 @@ public class ApplicationsList
 			folders.add(folder) ;
 		}
 
+		// Remove from the drawer the applications moved in folders
+		removeAll(drawer, moved) ;
+
 		// Sort the folders and add them at the beginning of the list
-		Collections.sort(folders, new Comparator<Folder>()
-		{
-			@Override
-			public int compare(Folder folder1, Folder folder2)
-			{
-				return folder1.getDisplayName().compareToIgnoreCase(folder2.getDisplayName()) ;
-			}
-		}) ;
+		Collections.sort(folders) ;
 		drawer.addAll(0, folders) ;
 	}
 
 
 	/**
-	 * Hide applications based on the internal file (to apply before folders).
+	 * Hide applications based on the internal file (to apply before folders, also measured by the benchmarks).
+	 * @param drawer Applications drawer being built
+	 * @return List of hidden applications
 	 */
-	private void manageHiddenApplications()
+	static ArrayList<Application> manageHiddenApplications(ArrayList<Application> drawer)
 	{
 		// Check if hidden applications have been defined
-		hidden.clear() ;
+		ArrayList<Application> hidden = new ArrayList<>() ;
 		ArrayList<String> hidden_file = new InternalFileTXT(Constants.FILE_HIDDEN).readAllLines() ;
-		if(hidden_file == null) return ;
+		if(hidden_file == null) return hidden ;
 
 		// Convert the hidden from the name format to ComponentInfo format if needed
-		hidden_file = convertComponentInfo(Constants.FILE_HIDDEN, hidden_file) ;
+		hidden_file = convertComponentInfo(Constants.FILE_HIDDEN, hidden_file, buildIndex(drawer, true).values()) ;
 
-		// Browse the list of applications that should be hidden
-		for(String line : hidden_file)
-		{
-			// Never hide the Discreet Launcher icon (as it can be the only access to the menu)
-			if(line.equals("{com.vincent_falzon.discreetlauncher/com.vincent_falzon.discreetlauncher.ActivityMain}")) continue ;
+		// Never hide the Discreet Launcher icon (as it can be the only access to the menu)
+		HashMap<String, Application> applications = buildIndex(drawer, false) ;
+		applications.remove(COMPONENT_LAUNCHER) ;
 
-			// Search the internal name in the applications list
-			for(Application application : drawer)
-				if(application.getComponentInfo().equals(line))
-					{
-						// Remove the application icon to lower memory footprint
-						application.setIcon(null) ;
+		// Move the applications of the file in the hidden list
+		HashSet<Application> moved = new HashSet<>() ;
+		resolve(hidden_file, applications, moved, hidden) ;
 
-						// Move the application in the hidden list
-						hidden.add(application) ;
-						drawer.remove(application) ;
-						break ;
-					}
-		}
+		// Remove their icon to lower memory footprint
+		for(Application application : hidden) application.setIcon(null) ;
+
+		// Remove the hidden applications from the drawer
+		removeAll(drawer, moved) ;
+		return hidden ;
 	}
 
 
 	/**
 	 * Add shortcuts to the applications list based on the shortcuts files.
 	 * @param context To get the icons
+	 * @param drawer Applications drawer being built
 	 */
-	private void loadShortcuts(Context context)
+	private void loadShortcuts(Context context, ArrayList<Application> drawer)
 	{
 		// Use the folder icon as default shortcut icon
 		Drawable default_icon = ResourcesCompat.getDrawable(context.getResources(), R.drawable.icon_folder, null) ;
 		int icon_size = Math.round(48 * context.getResources().getDisplayMetrics().density) ;
-		if(default_icon != null) default_icon.setBounds(0, 0, icon_size, icon_size) ;
+		if(default_icon != null) default_icon = IconCache.toDrawable(context.getResources(), IconCache.rasterize(default_icon, icon_size)) ;
 
 		// If their file exists, browse the shortcuts
 		InternalFileTXT file = new InternalFileTXT(Constants.FILE_SHORTCUTS) ;
@@ -281,16 +1032,12 @@ public class ApplicationsList
 					shortcut = shortcut_line.split(Constants.SHORTCUT_SEPARATOR) ;
 					if(shortcut.length != 4) continue ;
 
-					// Try to retrieve the shortcut icon or use the default icon
-					InternalFilePNG icon_file = new InternalFilePNG(Constants.FILE_ICON_SHORTCUT_PREFIX + shortcut[0] + ".png") ;
-					Drawable icon = icon_file.convertBitmapToDrawable(context, icon_file.readFromFile()) ;
-					if(icon != null) icon.setBounds(0, 0, icon_size, icon_size) ;
-						else icon = default_icon ;
-
-					// Add the shortcut to the list of applications
-					drawer.add(new Shortcut(shortcut[0],
+					// Add the shortcut to the list of applications with its icon or the default icon
+					Shortcut newShortcut = new Shortcut(shortcut[0],
 							shortcut[1] + Constants.SHORTCUT_SEPARATOR + shortcut[2] + Constants.SHORTCUT_SEPARATOR + shortcut[3],
-							Constants.APK_SHORTCUT, icon)) ;
+							Constants.APK_SHORTCUT, default_icon) ;
+					loadShortcutIcon(newShortcut, Constants.FILE_ICON_SHORTCUT_PREFIX + shortcut[0] + ".png", icon_size) ;
+					drawer.add(newShortcut) ;
 				}
 			}
 
@@ -305,38 +1052,168 @@ public class ApplicationsList
 					legacy_shortcut = legacy_shortcut_line.split(Constants.SHORTCUT_SEPARATOR) ;
 					if(legacy_shortcut.length != 2) continue ;
 
-					// Try to retrieve the shortcut icon or use the default icon
-					InternalFilePNG icon_file = new InternalFilePNG(Constants.FILE_ICON_SHORTCUT_PREFIX + legacy_shortcut[0] + ".png") ;
-					Drawable icon = icon_file.convertBitmapToDrawable(context, icon_file.readFromFile()) ;
-					if(icon != null) icon.setBounds(0, 0, icon_size, icon_size) ;
-						else icon = default_icon ;
-
-					// Add the shortcut to the list of applications
-					drawer.add(new Shortcut(legacy_shortcut[0], legacy_shortcut[1], Constants.APK_SHORTCUT_LEGACY, icon)) ;
+					// Add the shortcut to the list of applications with its icon or the default icon
+					Shortcut newShortcut = new Shortcut(legacy_shortcut[0], legacy_shortcut[1], Constants.APK_SHORTCUT_LEGACY, default_icon) ;
+					loadShortcutIcon(newShortcut, Constants.FILE_ICON_SHORTCUT_PREFIX + legacy_shortcut[0] + ".png", icon_size) ;
+					drawer.add(newShortcut) ;
 				}
 			}
 	}
 
 
+	/**
+	 * Load the icon of a shortcut in the icons cache at the displayed size, it is read again from its file at each update.
+	 * @param shortcut Shortcut keeping its default icon if the file cannot be read
+	 * @param filename Name of the PNG file containing the icon
+	 * @param icon_size Width and height of the icons in pixels
+	 */
+	private static void loadShortcutIcon(Shortcut shortcut, String filename, int icon_size)
+	{
+		Bitmap bitmap = IconCache.resize(new InternalFilePNG(filename).readFromFile(), icon_size) ;
+		if(bitmap == null) return ;
+		IconCache.put(filename, bitmap) ;
+		shortcut.setIconFile(filename) ;
+	}
+
+
+	/**
+	 * Index the applications of a drawer by ComponentInfo (also measured by the benchmarks).
+	 * @param drawer Applications drawer to browse
+	 * @param with_folders_content To include or not the applications inside folders
+	 * @return Map of the applications (and folders) by ComponentInfo
+	 */
+	static HashMap<String, Application> buildIndex(ArrayList<Application> drawer, boolean with_folders_content)
+	{
+		HashMap<String, Application> result = new HashMap<>() ;
+		for(Application application : drawer)
+		{
+			result.put(application.getComponentInfo(), application) ;
+			if(with_folders_content && (application instanceof Folder))
+				for(Application folder_application : ((Folder)application).getApplications())
+					result.put(folder_application.getComponentInfo(), folder_application) ;
+		}
+		return result ;
+	}
+
+
+	/**
+	 * Add the applications referenced by the lines of an internal file (favorites, hidden, folders),
+	 * keeping the order of the file (also measured by the benchmarks).
+	 * @param lines ComponentInfo read from the internal file
+	 * @param index Applications indexed by ComponentInfo
+	 * @param taken Applications already used elsewhere, completed with the added ones
+	 * @param result List to complete, unknown and already used applications are skipped
+	 */
+	static void resolve(List<String> lines, HashMap<String, Application> index, HashSet<Application> taken, List<Application> result)
+	{
+		for(String line : lines)
+		{
+			Application application = index.get(line) ;
+			if((application != null) && taken.add(application)) result.add(application) ;
+		}
+	}
+
+
+	/**
+	 * Remove a set of applications from a list in a single pass.
+	 * @param list List to update
+	 * @param to_remove Applications to remove
+	 */
+	private static void removeAll(ArrayList<Application> list, HashSet<Application> to_remove)
+	{
+		if(to_remove.isEmpty()) return ;
+		ArrayList<Application> kept = new ArrayList<>(list.size()) ;
+		for(Application application : list)
+			if(!to_remove.contains(application)) kept.add(application) ;
+		list.clear() ;
+		list.addAll(kept) ;
+	}
+
+
+	/**
+	 * Forget the derived views after the drawer, folders or hidden applications have changed, and
+	 * rebuild the search index once the current changes are displayed, so that it is ready when opened.
+	 */
+	private void invalidateViews()
+	{
+		foldersView = null ;
+		notInFoldersView = null ;
+		applicationsView = null ;
+		applicationsWithFoldersView = null ;
+		searchIndex = null ;
+		final int version = ++views_version ;
+		mainThread.post(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					prepareSearchIndex(version) ;
+				}
+			}) ;
+	}
+
+
+	/**
+	 * Build the search index in the background, as normalizing and converting the names of all applications
+	 * to other alphabets takes time, along with the launch counters used to rank the results, then keep it unless the lists have changed again meanwhile (to call from the main thread).
+	 * @param version Version of the lists for which the index is built
+	 */
+	private void prepareSearchIndex(final int version)
+	{
+		// Check if the index is still needed and not already being built
+		if((version != views_version) || (searchIndex != null) || (version == search_index_version)) return ;
+		search_index_version = version ;
+
+		// Retrieve the applications to index on the main thread, as the lists can only change there
+		final ArrayList<Application> applications = getSearchedApplications() ;
+		final HashMap<Application, String> folders_names = getFoldersNames() ;
+		catalogThread.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					LaunchCounter.load() ;
+					final SearchIndex newSearchIndex = new SearchIndex(applications, folders_names) ;
+					mainThread.post(new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								// Keep the index and inform the ones waiting for it, unless the lists have changed again
+								if((version != views_version) || (searchIndex != null)) return ;
+								searchIndex = newSearchIndex ;
+								ArrayList<Runnable> waiters = new ArrayList<>(searchIndexWaiters) ;
+								searchIndexWaiters.clear() ;
+								for(Runnable waiter : waiters) waiter.run() ;
+							}
+						}) ;
+				}
+			}) ;
+	}
+
+
 	/**
 	 * For display in selection dialog.
-	 * @return List of folders
+	 * @return Unmodifiable list of folders
 	 */
-	public ArrayList<Folder> getFolders()
+	public List<Folder> getFolders()
 	{
+		if(foldersView != null) return foldersView ;
 		ArrayList<Folder> result = new ArrayList<>() ;
 		for(Application application : drawer)
 			if(application instanceof Folder) result.add((Folder)application) ;
-		return result ;
+		foldersView = Collections.unmodifiableList(result) ;
+		return foldersView ;
 	}
 
 
 	/**
 	 * For display in selection dialog.
-	 * @return List of applications not in folders
+	 * @return Unmodifiable list of applications not in folders
 	 */
-	public ArrayList<Application> getApplicationsNotInFolders()
+	public List<Application> getApplicationsNotInFolders()
 	{
+		if(notInFoldersView != null) return notInFoldersView ;
 		ArrayList<Application> result = new ArrayList<>() ;
 		for(Application application : drawer)
 		{
@@ -346,58 +1223,90 @@ public class ApplicationsList
 			// Add all user applications outside folders
 			if(!(application instanceof Folder)) result.add(application) ;
 		}
-		return result ;
+		notInFoldersView = Collections.unmodifiableList(result) ;
+		return notInFoldersView ;
 	}
 
 
 	/**
 	 * For display in the settings and the favorites selection dialog.
 	 * @param with_folders To include or not the folders in the result
-	 * @return List of all applications (except hidden) whether or not they are in folders
+	 * @return Unmodifiable list of all applications (except hidden) whether or not they are in folders
 	 */
-	public ArrayList<Application> getApplications(boolean with_folders)
+	public List<Application> getApplications(boolean with_folders)
 	{
+		// Use the views already built if the drawer has not changed
+		if(with_folders && (applicationsWithFoldersView != null)) return applicationsWithFoldersView ;
+		if(!with_folders && (applicationsView != null)) return applicationsView ;
+
 		// Aggregate all applications in one list
-		ArrayList<Application> allApplications = new ArrayList<>() ;
-		ArrayList<Folder> folders = new ArrayList<>() ;
-		for(Application application : drawer)
-		{
-			// Add all applications whether or not they are in folders
-			if(application instanceof Folder)
+		if(applicationsView == null)
+			{
+				ArrayList<Application> allApplications = new ArrayList<>() ;
+				for(Application application : drawer)
 				{
-					allApplications.addAll(((Folder)application).getApplications()) ;
-					folders.add((Folder)application) ;
+					// Add all applications whether or not they are in folders
+					if(application instanceof Folder) allApplications.addAll(((Folder)application).getApplications()) ;
+						else allApplications.add(application) ;
 				}
-				else allApplications.add(application) ;
-		}
 
-		// Sort the list in alphabetic order based on display name
-		Collections.sort(allApplications, new Comparator<Application>()
-		{
-			@Override
-			public int compare(Application application1, Application application2)
-			{
-				return application1.getDisplayName().compareToIgnoreCase(application2.getDisplayName()) ;
+				// Sort the list in alphabetic order based on display name
+				Collections.sort(allApplications) ;
+				applicationsView = Collections.unmodifiableList(allApplications) ;
 			}
-		}) ;
+		if(!with_folders) return applicationsView ;
+
+		// Add the sorted folders at the beginning of the list
+		ArrayList<Application> allWithFolders = new ArrayList<Application>(getFolders()) ;
+		Collections.sort(allWithFolders) ;
+		allWithFolders.addAll(applicationsView) ;
+		applicationsWithFoldersView = Collections.unmodifiableList(allWithFolders) ;
+		return applicationsWithFoldersView ;
+	}
+
+
+	/**
+	 * For the search, built once per version of the lists in the background (to call from the main thread).
+	 * @param onReady Run on the main thread once the index is ready, if it is not ready yet
+	 * @return Index of all applications (except hidden) whether or not they are in folders, or
+	 *         <code>null</code> if it is still being built
+	 */
+	public SearchIndex getSearchIndex(Runnable onReady)
+	{
+		// Use the index already built if the drawer has not changed
+		if(searchIndex != null) return searchIndex ;
+
+		// Otherwise wait for the index being built, or start to build it
+		if(!searchIndexWaiters.contains(onReady)) searchIndexWaiters.add(onReady) ;
+		prepareSearchIndex(views_version) ;
+		return null ;
+	}
+
+
+	/**
+	 * For the search index.
+	 * @return All applications (except hidden) whether or not they are in folders, without the search
+	 */
+	private ArrayList<Application> getSearchedApplications()
+	{
+		ArrayList<Application> applications = new ArrayList<>() ;
+		for(Application application : getApplications(false))
+			if(!(application instanceof Search)) applications.add(application) ;
+		return applications ;
+	}
 
-		// If requested, add folders at the beginning of the list
-		if(with_folders)
-			{
-				// Sort the folders and add them at the beginning of the list
-				Collections.sort(folders, new Comparator<Folder>()
-				{
-					@Override
-					public int compare(Folder folder1, Folder folder2)
-					{
-						return folder1.getDisplayName().compareToIgnoreCase(folder2.getDisplayName()) ;
-					}
-				}) ;
-				allApplications.addAll(0, folders) ;
-			}
 
-		// Return the result
-		return allApplications ;
+	/**
+	 * For the search index.
+	 * @return Name of the folder containing each application in a folder
+	 */
+	private HashMap<Application, String> getFoldersNames()
+	{
+		HashMap<Application, String> folders_names = new HashMap<>() ;
+		for(Folder folder : getFolders())
+			for(Application application : folder.getApplications())
+				folders_names.put(application, folder.getDisplayName()) ;
+		return folders_names ;
 	}
 
 
@@ -436,10 +1345,26 @@ public class ApplicationsList
 	 * (Added in v4.1.0 middle of 06/2021, to remove after 30/09/2021)
 	 * @param filename Name of the internal file
 	 * @param content Current file content
+	 * @param allApplications Applications in which the names should be searched
 	 * @return Converted file content
 	 */
-	private ArrayList<String> convertComponentInfo(String filename, ArrayList<String> content)
+	private static ArrayList<String> convertComponentInfo(String filename, ArrayList<String> content, Collection<Application> allApplications)
 	{
+		// Do nothing if the file is already converted
+		boolean converted = true ;
+		for(String line : content)
+			if(!line.startsWith("{"))
+				{
+					converted = false ;
+					break ;
+				}
+		if(converted) return content ;
+
+		// Index the applications by internal name (the first one found is kept)
+		HashMap<String, Application> names = new HashMap<>() ;
+		for(Application application : allApplications)
+			if(!names.containsKey(application.getName())) names.put(application.getName(), application) ;
+
 		// Browse the internal file
 		ArrayList<String> new_content = new ArrayList<>() ;
 		for(String line : content)
@@ -451,14 +1376,9 @@ public class ApplicationsList
 					continue ;
 				}
 
-			// Search the internal name in the applications list
-			for(Application application : getApplications(true))
-				if(application.getName().equals(line))
-					{
-						// Retrieve the ComponentInfo of the application
-						new_content.add(application.getComponentInfo()) ;
-						break ;
-					}
+			// Search the internal name in the applications list and retrieve its ComponentInfo
+			Application application = names.get(line) ;
+			if(application != null) new_content.add(application.getComponentInfo()) ;
 		}
 
 		// If any, write the new content in the file
@@ -471,4 +1391,31 @@ public class ApplicationsList
 		// Return the converted file
 		return new_content ;
 	}
+
+
+	/**
+	 * Interface to be informed when the applications lists have been updated.
+	 */
+	public interface UpdateListener
+	{
+		/**
+		 * Called on the main thread when a new version of the lists has been published.
+		 */
+		void onApplicationsListUpdated() ;
+
+		/**
+		 * Called on the main thread when a single item of the drawer has changed.
+		 * The new drawer is already published, changes are reported in the order they were applied.
+		 * @param change <code>ITEM_INSERTED</code>, <code>ITEM_REMOVED</code> or <code>ITEM_CHANGED</code>
+		 * @param position Position of the item at the time of the change
+		 */
+		void onDrawerItemChanged(int change, int position) ;
+
+		/**
+		 * Called on the main thread when a single item of the favorites has changed.
+		 * @param change <code>ITEM_INSERTED</code>, <code>ITEM_REMOVED</code> or <code>ITEM_CHANGED</code>
+		 * @param position Position of the item at the time of the change
+		 */
+		void onFavoritesItemChanged(int change, int position) ;
+	}
 }
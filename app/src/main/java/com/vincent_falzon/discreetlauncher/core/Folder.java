@@ -25,6 +25,7 @@ package com.vincent_falzon.discreetlauncher.core ;
 // Imports
 import android.content.Context ;
 import android.content.Intent ;
+import android.content.res.Resources ;
 import android.graphics.Color ;
 import android.graphics.drawable.ColorDrawable ;
 import android.graphics.drawable.Drawable ;
@@ -44,7 +45,6 @@ import com.vincent_falzon.discreetlauncher.R ;
 import com.vincent_falzon.discreetlauncher.RecyclerAdapter ;
 import java.util.ArrayList ;
 import java.util.Collections ;
-import java.util.Comparator ;
 import static com.vincent_falzon.discreetlauncher.ActivityMain.getApplicationWidth ;
 
 /**
@@ -70,6 +70,31 @@ public class Folder extends Application
 	}
 
 
+	/**
+	 * Constructor to copy a folder, so that its content can be changed without affecting the original.
+	 * @param folder Folder to copy
+	 */
+	public Folder(Folder folder)
+	{
+		super(folder.display_name, folder.name, Constants.APK_FOLDER, folder.icon) ;
+		applications = new ArrayList<>(folder.applications) ;
+		popup = null ;
+	}
+
+
+	/**
+	 * Get the icon of the folder, drawn with the same resources as the applications next to it.
+	 * @param resources Resources of the context displaying the icon
+	 * @return Icon displayed in the menus
+	 */
+	@Override
+	public Drawable getIcon(Resources resources)
+	{
+		if(icon instanceof FolderIcon) icon = ((FolderIcon)icon).withResources(resources) ;
+		return icon ;
+	}
+
+
 	/**
 	 * Get the display name of the folder followed by the number of elements inside.
 	 * @return Name displayed in the menus
@@ -87,6 +112,7 @@ public class Folder extends Application
 	public void setDisplayName(String new_name)
 	{
 		display_name = new_name ;
+		sort_key = getCollationKey(new_name) ;
 		name = Constants.APK_FOLDER + display_name ;
 		component_info = "{" + apk + "/" + name + "}" ;
 	}
@@ -129,14 +155,7 @@ public class Folder extends Application
 	public void sortFolder()
 	{
 		if(applications.size() < 2) return ;
-		Collections.sort(applications, new Comparator<Application>()
-		{
-			@Override
-			public int compare(Application application1, Application application2)
-			{
-				return application1.getDisplayName().compareToIgnoreCase(application2.getDisplayName()) ;
-			}
-		}) ;
+		Collections.sort(applications) ;
 	}
 
 
@@ -23,7 +23,7 @@ package com.vincent_falzon.discreetlauncher.core ;
  */
 
 // Imports
-import android.content.Context ;
+import android.content.res.Resources ;
 import android.graphics.Bitmap ;
 import android.graphics.Canvas ;
 import android.graphics.ColorFilter ;
@@ -38,38 +38,36 @@ import com.vincent_falzon.discreetlauncher.R ;
  */
 public class FolderIcon extends Drawable
 {
+	// Constants
+	private static final String CACHE_KEY = "icon_folder" ;
+
 	// Attribute
-	private final Bitmap icon ;
+	private final Resources resources ;
+	private final int applications_number ;
 	private final String number ;
 	private final Paint paint ;
 	private final float density ;
+	private Drawable base ;
 
 
 	/**
 	 * Constructor.
-	 * @param context To load the folder icon
+	 * @param resources Resources of the context displaying the icon
 	 * @param applications_number To display in the icon
 	 */
-	public FolderIcon(Context context, int applications_number)
+	public FolderIcon(Resources resources, int applications_number)
 	{
-		// Retrieve the folder icon and convert it into a bitmap
-		density = context.getResources().getDisplayMetrics().density ;
-		int icon_size = Math.round(48 * density) ;
-		Drawable folderIcon = ResourcesCompat.getDrawable(context.getResources(), R.drawable.icon_folder, null) ;
-		if(folderIcon != null)
-			{
-				icon = Bitmap.createBitmap(folderIcon.getIntrinsicWidth(), folderIcon.getIntrinsicHeight(), Bitmap.Config.ARGB_8888) ;
-				folderIcon.setBounds(0, 0, icon_size, icon_size) ;
-				folderIcon.draw(new Canvas(icon)) ;
-			}
-			else icon = null ;
+		// Keep the resources to convert the folder icon into a bitmap when needed
+		this.resources = resources ;
+		density = resources.getDisplayMetrics().density ;
 
 		// Retrieve the number to write and define its settings
+		this.applications_number = applications_number ;
 		this.number = "" + applications_number ;
 		paint = new Paint() ;
 		paint.setAntiAlias(true) ;
 		paint.setTextSize(16 * density) ;
-		paint.setColor(context.getResources().getColor(R.color.white)) ;
+		paint.setColor(resources.getColor(R.color.white)) ;
 		paint.setTextAlign(Paint.Align.CENTER) ;
 	}
 
@@ -81,11 +79,65 @@ public class FolderIcon extends Drawable
 	@Override
 	public void draw(Canvas canvas)
 	{
-		canvas.drawBitmap(icon, 0, 0, paint);
+		if(base != null) base.draw(canvas) ;
+			else
+			{
+				Bitmap icon = getFolderBitmap() ;
+				if(icon != null) canvas.drawBitmap(icon, 0, 0, paint);
+			}
 		canvas.drawText(number, 24 * density, 42 * density, paint);
 	}
 
 
+	/**
+	 * Get this folder icon as drawn with the resources of another context.
+	 * @param resources Resources of the context displaying the icon
+	 * @return This icon if it already uses these resources, or a copy using them
+	 */
+	FolderIcon withResources(Resources resources)
+	{
+		// Keep this icon if it already uses the same resources
+		if(resources == this.resources) return this ;
+
+		// Otherwise, create a copy at the size of these resources
+		FolderIcon copy = new FolderIcon(resources, applications_number) ;
+		int icon_size = Math.round(48 * copy.density) ;
+		copy.setBounds(0, 0, icon_size, icon_size) ;
+
+		// Keep the atlas base only if it was packed at the same size
+		if(copy.density == density) copy.base = base ;
+		return copy ;
+	}
+
+
+	/**
+	 * Draw the folder icon from an atlas instead of the icons cache.
+	 * @param base Folder icon without the number, at the icons size
+	 */
+	void setBase(Drawable base)
+	{
+		this.base = base ;
+	}
+
+
+	/**
+	 * Retrieve the folder icon shared by all folders, convert it again if it was evicted from the cache.
+	 * @return A bitmap or <code>null</code> if the folder icon cannot be loaded
+	 */
+	Bitmap getFolderBitmap()
+	{
+		int icon_size = Math.round(48 * density) ;
+		String key = CACHE_KEY + "_" + icon_size ;
+		Bitmap icon = IconCache.get(key) ;
+		if(icon != null) return icon ;
+		Drawable folderIcon = ResourcesCompat.getDrawable(resources, R.drawable.icon_folder, null) ;
+		if(folderIcon == null) return null ;
+		icon = IconCache.rasterize(folderIcon, icon_size) ;
+		IconCache.put(key, icon) ;
+		return icon ;
+	}
+
+
 	/**
 	 * Needed to extend Drawable.
 	 * @param alpha 0 is transparent and 255 is opaque
@@ -0,0 +1,221 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import android.graphics.Bitmap ;
+import android.graphics.Canvas ;
+import android.graphics.ColorFilter ;
+import android.graphics.Paint ;
+import android.graphics.PixelFormat ;
+import android.graphics.Rect ;
+import android.graphics.drawable.Drawable ;
+
+/**
+ * Pack icons side by side in a few large bitmaps, so that the drawer uses a few textures
+ * instead of one per icon. Each icon is then drawn from its area in one of the pages.
+ * An atlas is filled from a single thread before its icons are displayed.
+ */
+class IconAtlas
+{
+	// Constants (largest texture size supported by all devices)
+	private static final int MAX_PAGE_SIZE = 2048 ;
+
+	// Attributes
+	private final int icon_size ;
+	private final int columns ;
+	private final int max_rows ;
+	private int remaining ;
+	private Bitmap page ;
+	private Canvas canvas ;
+	private int page_capacity ;
+	private int slot ;
+	private int size ;
+
+
+	/**
+	 * Constructor to prepare an atlas.
+	 * @param icon_size Width and height of the icons in pixels
+	 * @param count Expected number of icons, to size the pages
+	 */
+	IconAtlas(int icon_size, int count)
+	{
+		this.icon_size = icon_size ;
+		columns = Math.max(1, MAX_PAGE_SIZE / icon_size) ;
+		max_rows = Math.max(1, MAX_PAGE_SIZE / icon_size) ;
+		remaining = count ;
+		page = null ;
+		slot = 0 ;
+		page_capacity = 0 ;
+		size = 0 ;
+	}
+
+
+	/**
+	 * Draw an icon in the next free area of the atlas.
+	 * @param icon Icon to draw
+	 * @return A Drawable showing the icon from the atlas
+	 */
+	Drawable add(Drawable icon)
+	{
+		// Start a new page when the current one is full, only as high as needed for the remaining icons
+		if(slot >= page_capacity)
+			{
+				int rows = Math.min(max_rows, Math.max(1, (remaining + columns - 1) / columns)) ;
+				page = Bitmap.createBitmap(columns * icon_size, rows * icon_size, Bitmap.Config.ARGB_8888) ;
+				canvas = new Canvas(page) ;
+				size += page.getByteCount() ;
+				page_capacity = columns * rows ;
+				slot = 0 ;
+			}
+
+		// Draw the icon in its area, then restore its bounds
+		int left = (slot % columns) * icon_size ;
+		int top = (slot / columns) * icon_size ;
+		Rect area = new Rect(left, top, left + icon_size, top + icon_size) ;
+		Rect bounds = icon.copyBounds() ;
+		icon.setBounds(area) ;
+		icon.draw(canvas) ;
+		icon.setBounds(bounds) ;
+		slot++ ;
+		remaining-- ;
+		return new AtlasIcon(page, area, icon_size) ;
+	}
+
+
+	/**
+	 * Compute the memory that the pages of an atlas would use, before filling it.
+	 * @param icon_size Width and height of the icons in pixels
+	 * @param count Number of icons
+	 * @return Size in bytes
+	 */
+	static long getSize(int icon_size, int count)
+	{
+		int columns = Math.max(1, MAX_PAGE_SIZE / icon_size) ;
+		long rows = (count + columns - 1) / columns ;
+		return rows * columns * icon_size * icon_size * 4L ;
+	}
+
+
+	/**
+	 * Get the memory used by the pages of the atlas.
+	 * @return Size in bytes
+	 */
+	int getSize()
+	{
+		return size ;
+	}
+
+
+	/**
+	 * Draw an icon from its area in a page of the atlas.
+	 */
+	private static class AtlasIcon extends Drawable
+	{
+		// Attributes
+		private final Bitmap page ;
+		private final Rect area ;
+		private final Paint paint ;
+
+
+		/**
+		 * Constructor.
+		 * @param page Page of the atlas containing the icon
+		 * @param area Area of the icon in the page
+		 * @param icon_size Width and height of the icon in pixels
+		 */
+		AtlasIcon(Bitmap page, Rect area, int icon_size)
+		{
+			this.page = page ;
+			this.area = area ;
+			paint = new Paint(Paint.FILTER_BITMAP_FLAG) ;
+			setBounds(0, 0, icon_size, icon_size) ;
+		}
+
+
+		/**
+		 * Draw the area of the page containing the icon.
+		 * @param canvas Where to draw
+		 */
+		@Override
+		public void draw(Canvas canvas)
+		{
+			canvas.drawBitmap(page, area, getBounds(), paint) ;
+		}
+
+
+		/**
+		 * Get the width of the icon.
+		 * @return Width in pixels
+		 */
+		@Override
+		public int getIntrinsicWidth()
+		{
+			return area.width() ;
+		}
+
+
+		/**
+		 * Get the height of the icon.
+		 * @return Height in pixels
+		 */
+		@Override
+		public int getIntrinsicHeight()
+		{
+			return area.height() ;
+		}
+
+
+		/**
+		 * Needed to extend Drawable.
+		 * @param alpha 0 is transparent and 255 is opaque
+		 */
+		@Override
+		public void setAlpha(int alpha)
+		{
+			paint.setAlpha(alpha) ;
+		}
+
+
+		/**
+		 * Needed to extend Drawable.
+		 * @param colorFilter Color filter to apply, <code>null</code> to remove
+		 */
+		@Override
+		public void setColorFilter(ColorFilter colorFilter)
+		{
+			paint.setColorFilter(colorFilter) ;
+		}
+
+
+		/**
+		 * Needed to extend Drawable.
+		 * @return Opacity class to use
+		 */
+		@Override
+		public int getOpacity()
+		{
+			return PixelFormat.TRANSLUCENT ;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import android.app.ActivityManager ;
+import android.content.ComponentCallbacks2 ;
+import android.content.Context ;
+import android.content.res.Resources ;
+import android.graphics.Bitmap ;
+import android.graphics.Canvas ;
+import android.graphics.drawable.BitmapDrawable ;
+import android.graphics.drawable.Drawable ;
+import android.util.LruCache ;
+
+/**
+ * Keep the icons bitmaps in memory within a budget in bytes, evicting the least recently used
+ * when it is exceeded. Icons evicted must be reloadable from their source (internal file or resources).
+ * The pages of the displayed icons atlas are counted in the budget, as they cannot be evicted, but they
+ * can only take half of it so that the icons kept by file name always have room in the cache.
+ * Can be used from several threads at once.
+ */
+public class IconCache
+{
+	// Constants
+	private static final int DEFAULT_BUDGET = 4 * 1024 * 1024 ;
+
+	// Attributes
+	private static int budget = DEFAULT_BUDGET ;
+	private static int atlas_size = 0 ;
+	private static final LruCache<String, Bitmap> bitmaps = new LruCache<String, Bitmap>(DEFAULT_BUDGET)
+		{
+			@Override
+			protected int sizeOf(String key, Bitmap bitmap)
+			{
+				return bitmap.getByteCount() ;
+			}
+		} ;
+
+
+	/**
+	 * Define the budget based on the memory available for the launcher (one eighth of it).
+	 * @param context To get the memory class of the device
+	 */
+	public static void setDefaultBudget(Context context)
+	{
+		ActivityManager activityManager = (ActivityManager)context.getSystemService(Context.ACTIVITY_SERVICE) ;
+		if(activityManager == null) return ;
+		setBudget(activityManager.getMemoryClass() * 1024 * 1024 / 8) ;
+	}
+
+
+	/**
+	 * Define the maximum size of the cache, evicting icons if needed.
+	 * @param bytes Budget in bytes
+	 */
+	public static synchronized void setBudget(int bytes)
+	{
+		budget = bytes ;
+		bitmaps.resize(getCacheBudget()) ;
+	}
+
+
+	/**
+	 * Get the maximum size of the cache, including the atlas.
+	 * @return Budget in bytes
+	 */
+	public static synchronized int getBudget()
+	{
+		return budget ;
+	}
+
+
+	/**
+	 * Get the part of the budget which can be taken by the atlas.
+	 * @return Maximum size of the pages of the atlas in bytes
+	 */
+	static synchronized int getAtlasBudget()
+	{
+		return budget / 2 ;
+	}
+
+
+	/**
+	 * Define the size of the atlas containing the displayed icons, which replaces the previous one,
+	 * and leave the rest of the budget to the cache.
+	 * @param bytes Size of the pages of the atlas in bytes, 0 if there is none
+	 */
+	static synchronized void setAtlasSize(int bytes)
+	{
+		atlas_size = bytes ;
+		bitmaps.resize(getCacheBudget()) ;
+	}
+
+
+	/**
+	 * Get the part of the budget left to the cache, never less than the half not available to the atlas.
+	 * @return Maximum size of the cache in bytes
+	 */
+	private static int getCacheBudget()
+	{
+		return Math.max(budget - getAtlasBudget(), budget - atlas_size) ;
+	}
+
+
+	/**
+	 * Retrieve an icon bitmap and mark it as recently used.
+	 * @param key Unique identifier of the icon (usually the name of its internal file)
+	 * @return A bitmap or <code>null</code> if it is not in the cache
+	 */
+	static Bitmap get(String key)
+	{
+		return bitmaps.get(key) ;
+	}
+
+
+	/**
+	 * Add or replace an icon bitmap.
+	 * @param key Unique identifier of the icon
+	 * @param bitmap Bitmap to keep, ignored if <code>null</code>
+	 */
+	static void put(String key, Bitmap bitmap)
+	{
+		if(bitmap != null) bitmaps.put(key, bitmap) ;
+	}
+
+
+	/**
+	 * Remove an icon bitmap which is not valid anymore.
+	 * @param key Unique identifier of the icon
+	 */
+	static void remove(String key)
+	{
+		bitmaps.remove(key) ;
+	}
+
+
+	/**
+	 * Shrink or empty the cache according to the memory pressure reported by the system.
+	 * @param level Provided by <code>onTrimMemory()</code>
+	 */
+	public static void trimMemory(int level)
+	{
+		// The launcher is in the background and likely to be killed: release everything
+		if(level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE)
+			{
+				bitmaps.evictAll() ;
+				return ;
+			}
+		if(level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+			{
+				trimTo(1, 2) ;
+				return ;
+			}
+
+		// The UI is hidden each time an application is started, keep the icons for the way back
+		if(level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return ;
+
+		// The launcher is still running while the system lacks memory
+		if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) bitmaps.evictAll() ;
+			else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) trimTo(1, 2) ;
+			else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) trimTo(3, 4) ;
+	}
+
+
+	/**
+	 * Shrink the memory used by the icons to a fraction of the budget, the atlas being counted
+	 * but not released (only the cache is shrunk).
+	 * @param numerator Numerator of the fraction to keep
+	 * @param denominator Denominator of the fraction to keep
+	 */
+	private static void trimTo(int numerator, int denominator)
+	{
+		int target ;
+		synchronized(IconCache.class)
+		{
+			target = Math.max(0, (int)((long)(bitmaps.maxSize() + atlas_size) * numerator / denominator) - atlas_size) ;
+		}
+		bitmaps.trimToSize(target) ;
+	}
+
+
+	/**
+	 * Draw an icon in a bitmap of the given size.
+	 * @param icon Icon to draw
+	 * @param icon_size Width and height in pixels
+	 * @return A new bitmap
+	 */
+	static Bitmap rasterize(Drawable icon, int icon_size)
+	{
+		Bitmap bitmap = Bitmap.createBitmap(icon_size, icon_size, Bitmap.Config.ARGB_8888) ;
+		icon.setBounds(0, 0, icon_size, icon_size) ;
+		icon.draw(new Canvas(bitmap)) ;
+		return bitmap ;
+	}
+
+
+	/**
+	 * Scale a bitmap to the size of an icon, so that it is not scaled again each time it is drawn.
+	 * @param bitmap Bitmap to scale, can be <code>null</code>
+	 * @param icon_size Width and height in pixels
+	 * @return The same bitmap if it already has the right size, otherwise a new bitmap
+	 */
+	static Bitmap resize(Bitmap bitmap, int icon_size)
+	{
+		if((bitmap == null) || ((bitmap.getWidth() == icon_size) && (bitmap.getHeight() == icon_size))) return bitmap ;
+		return Bitmap.createScaledBitmap(bitmap, icon_size, icon_size, true) ;
+	}
+
+
+	/**
+	 * Wrap a cached bitmap in a new Drawable ready to be displayed.
+	 * @param resources Resources of the context displaying the icon
+	 * @param bitmap Cached bitmap
+	 * @return A Drawable with the bounds of an icon
+	 */
+	static Drawable toDrawable(Resources resources, Bitmap bitmap)
+	{
+		int icon_size = Math.round(48 * resources.getDisplayMetrics().density) ;
+		Drawable icon = new BitmapDrawable(resources, bitmap) ;
+		icon.setBounds(0, 0, icon_size, icon_size) ;
+		return icon ;
+	}
+}
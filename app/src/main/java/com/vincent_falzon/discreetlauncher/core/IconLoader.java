@@ -0,0 +1,94 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import android.graphics.Bitmap ;
+import android.graphics.Color ;
+import android.graphics.drawable.ColorDrawable ;
+import android.graphics.drawable.Drawable ;
+import android.os.Handler ;
+import android.os.Looper ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFilePNG ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+
+/**
+ * Load the icons in the background when they are displayed and not in the icons cache.
+ */
+class IconLoader
+{
+	// Attributes
+	private static final ExecutorService loadingThread = Executors.newSingleThreadExecutor() ;
+	private static final Handler mainThread = new Handler(Looper.getMainLooper()) ;
+	private static Drawable placeholder = null ;
+
+
+	/**
+	 * Get the transparent icon displayed while the real one is loading (main thread only).
+	 * @param icon_size Width and height of the icons in pixels
+	 * @return A Drawable at the size of an icon
+	 */
+	static Drawable getPlaceholder(int icon_size)
+	{
+		if((placeholder == null) || (placeholder.getBounds().width() != icon_size))
+			{
+				placeholder = new ColorDrawable(Color.TRANSPARENT) ;
+				placeholder.setBounds(0, 0, icon_size, icon_size) ;
+			}
+		return placeholder ;
+	}
+
+
+	/**
+	 * Decode an icon in the background into the icons cache, then inform the application on the main thread.
+	 * @param application Application waiting for its icon
+	 * @param filename Name of the PNG file containing the icon, also used as cache key
+	 * @param icon_size Width and height of the icons in pixels
+	 * @param onLoaded Called on the main thread once the icon is available, can be <code>null</code>
+	 */
+	static void load(final Application application, final String filename, final int icon_size, final Runnable onLoaded)
+	{
+		loadingThread.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// Decode the icon at the displayed size and keep it in the cache
+					final Bitmap bitmap = IconCache.resize(new InternalFilePNG(filename).readFromFile(), icon_size) ;
+					IconCache.put(filename, bitmap) ;
+
+					// Inform the application on the main thread
+					mainThread.post(new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								application.onIconLoaded(bitmap != null, icon_size) ;
+								if(onLoaded != null) onLoaded.run() ;
+							}
+						}) ;
+				}
+			}) ;
+	}
+}
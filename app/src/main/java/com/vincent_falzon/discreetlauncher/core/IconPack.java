@@ -25,18 +25,24 @@ package com.vincent_falzon.discreetlauncher.core ;
 // Imports
 import android.content.Context ;
 import android.content.SharedPreferences ;
+import android.content.pm.PackageInfo ;
 import android.content.pm.PackageManager ;
 import android.content.res.Resources ;
+import android.graphics.Bitmap ;
+import android.graphics.Canvas ;
+import android.graphics.Paint ;
+import android.graphics.PorterDuff ;
+import android.graphics.PorterDuffXfermode ;
 import android.graphics.drawable.Drawable ;
+import androidx.core.content.pm.PackageInfoCompat ;
 import androidx.core.content.res.ResourcesCompat ;
 import androidx.preference.PreferenceManager ;
 import com.vincent_falzon.discreetlauncher.ActivityMain ;
 import com.vincent_falzon.discreetlauncher.Constants ;
 import com.vincent_falzon.discreetlauncher.R ;
 import com.vincent_falzon.discreetlauncher.ShowDialog ;
-import org.xmlpull.v1.XmlPullParser ;
-import org.xmlpull.v1.XmlPullParserException ;
-import java.io.IOException ;
+import com.vincent_falzon.discreetlauncher.Tracing ;
+import java.util.ArrayList ;
 
 /**
  * Provide icon pack support.
@@ -45,8 +51,13 @@ class IconPack
 {
 	// Attributes
 	private final String pack_name ;
+	private final Resources resources ;
+	private final int icon_size ;
 	private Resources pack_resources ;
 	private int appfilter_id ;
+	private long version_code ;
+	private long last_update ;
+	private volatile IconPackIndex index ;
 
 
 	/**
@@ -58,6 +69,8 @@ class IconPack
 	{
 		// Check if an icon pack is selected
 		appfilter_id = 0 ;
+		resources = context.getResources() ;
+		icon_size = Math.round(48 * resources.getDisplayMetrics().density) ;
 		SharedPreferences settings = PreferenceManager.getDefaultSharedPreferences(context) ;
 		pack_name = settings.getString(Constants.ICON_PACK, Constants.NONE) ;
 		if((pack_name == null) || pack_name.equals(Constants.NONE)) return ;
@@ -66,6 +79,9 @@ class IconPack
 		{
 			// Try to load the icon pack resources
 			pack_resources = apkManager.getResourcesForApplication(pack_name) ;
+			PackageInfo pack_info = apkManager.getPackageInfo(pack_name, 0) ;
+			version_code = PackageInfoCompat.getLongVersionCode(pack_info) ;
+			last_update = pack_info.lastUpdateTime ;
 		}
 		catch(PackageManager.NameNotFoundException e)
 		{
@@ -94,6 +110,17 @@ class IconPack
 	}
 
 
+	/**
+	 * Get the package name and version of the loaded icon pack, to know when icons drawn with it are outdated.
+	 * @return Package name followed by the version, or <code>Constants.NONE</code> if no icon pack is loaded
+	 */
+	String getPackVersion()
+	{
+		if(!isLoaded()) return Constants.NONE ;
+		return pack_name + "@" + version_code + "." + last_update ;
+	}
+
+
 	/**
 	 * Search the icon of an application in the pack.
 	 * @param apk Package name of the application
@@ -102,58 +129,147 @@ class IconPack
 	 */
 	Drawable searchIcon(String apk, String name)
 	{
-		// Initializations (the XML file need to be reloaded for each icon)
+		Tracing.begin("IconPack.searchIcon") ;
+		try { return findIcon(apk, name) ; }
+		finally { Tracing.end() ; }
+	}
+
+
+	/**
+	 * Find the icon of an application in the index of the pack.
+	 * @param apk Package name of the application
+	 * @param name Internal name of the application
+	 * @return An icon or <code>null</code> if it cannot be retrieved
+	 */
+	private Drawable findIcon(String apk, String name)
+	{
+		// Search the name of the icon in the pack
 		if(!isLoaded()) return null ;
-		XmlPullParser appfilter = pack_resources.getXml(appfilter_id) ;
-		String component_info = "ComponentInfo{" + apk + "/" + name ;
-		int i, j ;
+		IconPackIndex index = getIndex() ;
+		String icon_name = index.getIconName(apk + "/" + name) ;
+		if(icon_name == null) return null ;
+
+		// Try to load the icon from the pack
+		int icon_id = index.getIconId(icon_name) ;
+		if(icon_id > 0) return loadIcon(icon_name, icon_id) ;
+		return null ;
+	}
+
+
+	/**
+	 * Theme the icon of an application not found in the pack, using the background, mask,
+	 * foreground and scale defined by the pack (as this is costly, the result should be cached).
+	 * @param component_info ComponentInfo of the application
+	 * @param icon Real icon of the application
+	 * @return The themed icon, or the real icon if the pack does not theme other icons
+	 */
+	Drawable themeIcon(String component_info, Drawable icon)
+	{
+		// Check if the pack can theme the icon
+		if(!isLoaded()) return icon ;
+		IconPackIndex index = getIndex() ;
+		if(!index.hasTheme()) return icon ;
+		Tracing.begin("IconPack.themeIcon") ;
 
 		try
 		{
-			// Browse the appfilter.xml file
-			int event = appfilter.getEventType() ;
-			while(event != XmlPullParser.END_DOCUMENT)
-			{
-				// Search only the <item ...> tags
-				if((event == XmlPullParser.START_TAG) && appfilter.getName().equals("item"))
-					{
-						// Browse up to the "component" attribute
-						for(i = 0; i < appfilter.getAttributeCount() ; i++)
-						{
-							if(appfilter.getAttributeName(i).equals("component"))
-								{
-									// Check if this is the searched package
-									if(appfilter.getAttributeValue(i).startsWith(component_info))
-										{
-											// Get the icon name in the pack
-											String icon_name = "" ;
-											for(j = 0; j < appfilter.getAttributeCount() ; j++)
-												if(appfilter.getAttributeName(j).equals("drawable"))
-													icon_name = appfilter.getAttributeValue(j) ;
-
-											// Try to load the icon from the pack
-											int icon_id = pack_resources.getIdentifier(icon_name, "drawable", pack_name) ;
-											if(icon_id > 0) return ResourcesCompat.getDrawable(pack_resources, icon_id, null) ;
-
-											// No icon to load
-											return null ;
-										}
-
-									// Move to the next <item ...> tag
-									break ;
-								}
-						}
-					}
-				event = appfilter.next() ;
-			}
+			// Draw a background, always the same for an application when the pack has several
+			Bitmap themed = Bitmap.createBitmap(icon_size, icon_size, Bitmap.Config.ARGB_8888) ;
+			Canvas canvas = new Canvas(themed) ;
+			ArrayList<String> backs = index.getBacks() ;
+			if(!backs.isEmpty()) drawLayer(canvas, index, backs.get((component_info.hashCode() & Integer.MAX_VALUE) % backs.size()), null) ;
 
-			// Package not found in the icon pack
-			return null ;
+			// Draw the scaled icon on its own layer and cut it with the mask
+			Bitmap layer = Bitmap.createBitmap(icon_size, icon_size, Bitmap.Config.ARGB_8888) ;
+			Canvas layerCanvas = new Canvas(layer) ;
+			int scaled_size = Math.round(icon_size * index.getScale()) ;
+			int margin = (icon_size - scaled_size) / 2 ;
+			icon.setBounds(margin, margin, margin + scaled_size, margin + scaled_size) ;
+			icon.draw(layerCanvas) ;
+			if(index.getMask() != null)
+				{
+					Paint cut = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG) ;
+					cut.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OUT)) ;
+					drawLayer(layerCanvas, index, index.getMask(), cut) ;
+				}
+			canvas.drawBitmap(layer, 0, 0, null) ;
+			layer.recycle() ;
+
+			// Draw the foreground over the icon
+			if(index.getUpon() != null) drawLayer(canvas, index, index.getUpon(), null) ;
+			return IconCache.toDrawable(resources, themed) ;
 		}
-		catch(XmlPullParserException | IOException e)
+		finally
 		{
-			// An error happened during the parsing
-			return null ;
+			Tracing.end() ;
 		}
 	}
+
+
+	/**
+	 * Draw a layer of the themed icons at full size.
+	 * @param canvas Where to draw
+	 * @param index Index of the pack
+	 * @param icon_name Name of the drawable in the pack
+	 * @param paint How to draw the layer, or <code>null</code> to draw it normally
+	 */
+	private void drawLayer(Canvas canvas, IconPackIndex index, String icon_name, Paint paint)
+	{
+		int icon_id = index.getIconId(icon_name) ;
+		if(icon_id <= 0) return ;
+		Bitmap bitmap = loadBitmap(icon_name, icon_id) ;
+		if(bitmap != null) canvas.drawBitmap(bitmap, 0, 0, paint) ;
+	}
+
+
+	/**
+	 * Get the index of the pack, loading it on first call (this can be called from several loading threads at the same time).
+	 * @return Index of the icons by component
+	 */
+	private IconPackIndex getIndex()
+	{
+		IconPackIndex loaded = index ;
+		if(loaded != null) return loaded ;
+		synchronized(this)
+		{
+			if(index == null) index = IconPackIndex.load(pack_resources, pack_name, appfilter_id, version_code, last_update) ;
+			return index ;
+		}
+	}
+
+
+	/**
+	 * Load an icon from the pack through the icons cache, as several applications can share it.
+	 * @param icon_name Name of the drawable in the pack
+	 * @param icon_id Identifier of the drawable in the pack resources
+	 * @return An icon or <code>null</code> if it cannot be loaded
+	 */
+	private Drawable loadIcon(String icon_name, int icon_id)
+	{
+		Bitmap bitmap = loadBitmap(icon_name, icon_id) ;
+		if(bitmap == null) return null ;
+		return IconCache.toDrawable(resources, bitmap) ;
+	}
+
+
+	/**
+	 * Load a drawable from the pack at the icons size through the icons cache (the key includes
+	 * the pack version, as the drawable can change when the pack is updated).
+	 * @param icon_name Name of the drawable in the pack
+	 * @param icon_id Identifier of the drawable in the pack resources
+	 * @return The drawable in a bitmap or <code>null</code> if it cannot be loaded
+	 */
+	private Bitmap loadBitmap(String icon_name, int icon_id)
+	{
+		String key = "iconpack_" + getPackVersion() + "_" + icon_name ;
+		Bitmap bitmap = IconCache.get(key) ;
+		if(bitmap == null)
+			{
+				Drawable icon = ResourcesCompat.getDrawable(pack_resources, icon_id, null) ;
+				if(icon == null) return null ;
+				bitmap = IconCache.rasterize(icon, icon_size) ;
+				IconCache.put(key, bitmap) ;
+			}
+		return bitmap ;
+	}
 }
@@ -0,0 +1,413 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import android.content.res.Resources ;
+import com.vincent_falzon.discreetlauncher.Constants ;
+import com.vincent_falzon.discreetlauncher.Tracing ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileBIN ;
+import org.xmlpull.v1.XmlPullParser ;
+import org.xmlpull.v1.XmlPullParserException ;
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
+import java.io.IOException ;
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.Map ;
+
+/**
+ * Index the icons of an icon pack by component, with their resolved resource identifiers and
+ * the layers used to theme the icons of the other applications.
+ * The index is kept in the internal storage and built again from appfilter.xml only when
+ * another pack is selected or the pack is updated (the identifiers can change between versions).
+ */
+class IconPackIndex
+{
+	// Constants
+	private static final int MAGIC = 0x444C4950 ;
+	private static final int FORMAT = 2 ;
+
+	// Attributes
+	private final HashMap<String, String> icons_names ;
+	private final HashMap<String, Integer> icons_ids ;
+	private final ArrayList<String> backs ;
+	private String mask ;
+	private String upon ;
+	private float scale ;
+	private boolean complete ;
+
+
+	/**
+	 * Constructor to create an empty index.
+	 */
+	private IconPackIndex()
+	{
+		icons_names = new HashMap<>() ;
+		icons_ids = new HashMap<>() ;
+		backs = new ArrayList<>() ;
+		mask = null ;
+		upon = null ;
+		scale = 1f ;
+		complete = false ;
+	}
+
+
+	/**
+	 * Get the name of the icon of a component in the pack.
+	 * @param component Formatted as "package/name"
+	 * @return Name of the drawable or <code>null</code> if the component is not in the pack
+	 */
+	String getIconName(String component)
+	{
+		return icons_names.get(component) ;
+	}
+
+
+	/**
+	 * Get the resource identifier of an icon in the pack.
+	 * @param icon_name Name of the drawable
+	 * @return Identifier or 0 if the drawable does not exist in the pack
+	 */
+	int getIconId(String icon_name)
+	{
+		Integer icon_id = icons_ids.get(icon_name) ;
+		return (icon_id == null) ? 0 : icon_id ;
+	}
+
+
+	/**
+	 * Check if the pack can theme the icons of the applications it does not contain.
+	 * @return <code>true</code> if there is a background, mask or foreground, <code>false</code> otherwise
+	 */
+	boolean hasTheme()
+	{
+		return !backs.isEmpty() || (mask != null) || (upon != null) ;
+	}
+
+
+	/**
+	 * Get the backgrounds drawn behind the themed icons.
+	 * @return Names of the drawables (can be empty)
+	 */
+	ArrayList<String> getBacks()
+	{
+		return backs ;
+	}
+
+
+	/**
+	 * Get the mask cutting the themed icons.
+	 * @return Name of the drawable or <code>null</code> if there is none
+	 */
+	String getMask()
+	{
+		return mask ;
+	}
+
+
+	/**
+	 * Get the foreground drawn over the themed icons.
+	 * @return Name of the drawable or <code>null</code> if there is none
+	 */
+	String getUpon()
+	{
+		return upon ;
+	}
+
+
+	/**
+	 * Get the size of the application icon in the themed icons.
+	 * @return Factor applied to the icon size
+	 */
+	float getScale()
+	{
+		return scale ;
+	}
+
+
+	/**
+	 * Add a drawable to the index, resolving its identifier only once.
+	 * @param pack_resources Resources of the icon pack
+	 * @param pack_name Package name of the icon pack
+	 * @param icon_name Name of the drawable
+	 */
+	private void addDrawable(Resources pack_resources, String pack_name, String icon_name)
+	{
+		if(!icons_ids.containsKey(icon_name)) icons_ids.put(icon_name, pack_resources.getIdentifier(icon_name, "drawable", pack_name)) ;
+	}
+
+
+	/**
+	 * Load the index of an icon pack from the internal storage, or build and store it if needed.
+	 * @param pack_resources Resources of the icon pack
+	 * @param pack_name Package name of the icon pack
+	 * @param appfilter_id Identifier of the appfilter.xml file in the pack
+	 * @param version_code Version of the installed icon pack
+	 * @param last_update Last time the icon pack was installed or updated
+	 * @return The index, empty if appfilter.xml cannot be parsed
+	 */
+	static IconPackIndex load(Resources pack_resources, String pack_name, int appfilter_id, long version_code, long last_update)
+	{
+		// Use the stored index if it belongs to the same version of the pack
+		Tracing.begin("IconPackIndex.load") ;
+		try
+		{
+			InternalFileBIN file = new InternalFileBIN(Constants.FILE_CACHE_ICON_PACK) ;
+			IconPackIndex index = read(file.readAllBytes(), pack_name, version_code, last_update) ;
+			if(index != null) return index ;
+
+			// Otherwise build it and store it for the next times, unless appfilter.xml could not be fully parsed
+			index = parse(pack_resources, pack_name, appfilter_id) ;
+			if(!index.complete) return index ;
+			byte[] content = index.write(pack_name, version_code, last_update) ;
+			if(content != null) file.writeAllBytes(content) ;
+			return index ;
+		}
+		finally
+		{
+			Tracing.end() ;
+		}
+	}
+
+
+	/**
+	 * Browse the appfilter.xml file of the pack once to index the icons and resolve their identifiers.
+	 * @param pack_resources Resources of the icon pack
+	 * @param pack_name Package name of the icon pack
+	 * @param appfilter_id Identifier of the appfilter.xml file in the pack
+	 * @return The index, containing the icons found before an error if the parsing failed
+	 */
+	private static IconPackIndex parse(Resources pack_resources, String pack_name, int appfilter_id)
+	{
+		// Initializations
+		Tracing.begin("IconPackIndex.parse") ;
+		IconPackIndex index = new IconPackIndex() ;
+		XmlPullParser appfilter = pack_resources.getXml(appfilter_id) ;
+		String prefix = "ComponentInfo{" ;
+
+		try
+		{
+			// Browse the appfilter.xml file
+			int event = appfilter.getEventType() ;
+			while(event != XmlPullParser.END_DOCUMENT)
+			{
+				// Search only the tags
+				if(event != XmlPullParser.START_TAG)
+					{
+						event = appfilter.next() ;
+						continue ;
+					}
+
+				// Keep the layers of the themed icons (<iconback img1="..." img2="..."/>, <iconmask img1="..."/>, etc.)
+				String tag = appfilter.getName() ;
+				if(tag.equals("iconback") || tag.equals("iconmask") || tag.equals("iconupon") || tag.equals("scale"))
+					{
+						for(int i = 0 ; i < appfilter.getAttributeCount() ; i++)
+						{
+							String attribute = appfilter.getAttributeName(i) ;
+							String value = appfilter.getAttributeValue(i) ;
+							if(tag.equals("scale"))
+								{
+									if(attribute.equals("factor")) index.scale = parseScale(value) ;
+									continue ;
+								}
+							if(!attribute.startsWith("img") || value.isEmpty()) continue ;
+							index.addDrawable(pack_resources, pack_name, value) ;
+							if(tag.equals("iconback")) index.backs.add(value) ;
+								else if(tag.equals("iconmask")) index.mask = value ;
+								else index.upon = value ;
+						}
+					}
+
+				// Index the icons of the <item ...> tags
+				if(tag.equals("item"))
+					{
+						// Get the "component" and "drawable" attributes
+						String component = null ;
+						String icon_name = "" ;
+						for(int i = 0 ; i < appfilter.getAttributeCount() ; i++)
+						{
+							if(appfilter.getAttributeName(i).equals("component")) component = appfilter.getAttributeValue(i) ;
+								else if(appfilter.getAttributeName(i).equals("drawable")) icon_name = appfilter.getAttributeValue(i) ;
+						}
+
+						// Keep only the first icon of each component (formatted as "ComponentInfo{package/name}")
+						if((component != null) && component.startsWith(prefix))
+							{
+								int component_end = component.indexOf('}') ;
+								String key = component.substring(prefix.length(), (component_end < 0) ? component.length() : component_end) ;
+								if(!index.icons_names.containsKey(key))
+									{
+										index.icons_names.put(key, icon_name) ;
+										index.addDrawable(pack_resources, pack_name, icon_name) ;
+									}
+							}
+					}
+				event = appfilter.next() ;
+			}
+			index.complete = true ;
+		}
+		catch(XmlPullParserException | IOException e)
+		{
+			// An error happened during the parsing, keep the icons found so far without storing them
+		}
+		finally
+		{
+			Tracing.end() ;
+		}
+		return index ;
+	}
+
+
+	/**
+	 * Read the size of the application icon in the themed icons.
+	 * @param value Factor as written in appfilter.xml
+	 * @return Factor between 0 and 1, or 1 if it is invalid
+	 */
+	private static float parseScale(String value)
+	{
+		try
+		{
+			float factor = Float.parseFloat(value) ;
+			if((factor > 0) && (factor <= 1)) return factor ;
+			return 1f ;
+		}
+		catch(NumberFormatException e)
+		{
+			return 1f ;
+		}
+	}
+
+
+	/**
+	 * Decode a stored index if it belongs to the expected version of the pack.
+	 * @param content Content of the index file
+	 * @param pack_name Package name of the icon pack
+	 * @param version_code Version of the installed icon pack
+	 * @param last_update Last time the icon pack was installed or updated
+	 * @return The index or <code>null</code> if it is missing, outdated or corrupted
+	 */
+	private static IconPackIndex read(byte[] content, String pack_name, long version_code, long last_update)
+	{
+		if(content == null) return null ;
+		try
+		{
+			// Check the header
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(content)) ;
+			if((input.readInt() != MAGIC) || (input.readInt() != FORMAT)) return null ;
+			if(!input.readUTF().equals(pack_name) || (input.readLong() != version_code) || (input.readLong() != last_update)) return null ;
+
+			// Read the drawables with their identifiers
+			IconPackIndex index = new IconPackIndex() ;
+			int drawables_count = input.readInt() ;
+			String[] drawables = new String[drawables_count] ;
+			for(int i = 0 ; i < drawables_count ; i++)
+			{
+				drawables[i] = input.readUTF() ;
+				index.icons_ids.put(drawables[i], input.readInt()) ;
+			}
+
+			// Read the components with the position of their drawable
+			int components_count = input.readInt() ;
+			for(int i = 0 ; i < components_count ; i++)
+			{
+				String component = input.readUTF() ;
+				index.icons_names.put(component, drawables[input.readInt()]) ;
+			}
+
+			// Read the layers of the themed icons
+			int backs_count = input.readInt() ;
+			for(int i = 0 ; i < backs_count ; i++) index.backs.add(drawables[input.readInt()]) ;
+			int mask_position = input.readInt() ;
+			if(mask_position >= 0) index.mask = drawables[mask_position] ;
+			int upon_position = input.readInt() ;
+			if(upon_position >= 0) index.upon = drawables[upon_position] ;
+			index.scale = input.readFloat() ;
+			return index ;
+		}
+		catch(IOException | RuntimeException e)
+		{
+			// The file is truncated or corrupted
+			return null ;
+		}
+	}
+
+
+	/**
+	 * Encode the index with the version of the pack it belongs to.
+	 * @param pack_name Package name of the icon pack
+	 * @param version_code Version of the installed icon pack
+	 * @param last_update Last time the icon pack was installed or updated
+	 * @return Content of the index file or <code>null</code> if an error happened
+	 */
+	private byte[] write(String pack_name, long version_code, long last_update)
+	{
+		try
+		{
+			// Write the header
+			ByteArrayOutputStream content = new ByteArrayOutputStream() ;
+			DataOutputStream output = new DataOutputStream(content) ;
+			output.writeInt(MAGIC) ;
+			output.writeInt(FORMAT) ;
+			output.writeUTF(pack_name) ;
+			output.writeLong(version_code) ;
+			output.writeLong(last_update) ;
+
+			// Write the drawables once with their identifiers
+			HashMap<String, Integer> positions = new HashMap<>() ;
+			ArrayList<String> drawables = new ArrayList<>(icons_ids.keySet()) ;
+			output.writeInt(drawables.size()) ;
+			for(int i = 0 ; i < drawables.size() ; i++)
+			{
+				positions.put(drawables.get(i), i) ;
+				output.writeUTF(drawables.get(i)) ;
+				output.writeInt(icons_ids.get(drawables.get(i))) ;
+			}
+
+			// Write the components with the position of their drawable
+			output.writeInt(icons_names.size()) ;
+			for(Map.Entry<String, String> entry : icons_names.entrySet())
+			{
+				output.writeUTF(entry.getKey()) ;
+				output.writeInt(positions.get(entry.getValue())) ;
+			}
+
+			// Write the layers of the themed icons (-1 if missing)
+			output.writeInt(backs.size()) ;
+			for(String back : backs) output.writeInt(positions.get(back)) ;
+			output.writeInt((mask == null) ? -1 : positions.get(mask)) ;
+			output.writeInt((upon == null) ? -1 : positions.get(upon)) ;
+			output.writeFloat(scale) ;
+			output.close() ;
+			return content.toByteArray() ;
+		}
+		catch(IOException e)
+		{
+			// An error happened during the encoding
+			return null ;
+		}
+	}
+}
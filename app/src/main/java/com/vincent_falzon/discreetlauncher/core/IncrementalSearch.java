@@ -0,0 +1,105 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import java.util.ArrayList ;
+import java.util.Map ;
+
+/**
+ * Search applications while the user is typing, reusing the previous results: when characters are
+ * added, only the previous matches are checked, and when characters are removed, the results of
+ * the shorter pattern are taken back from a small stack.
+ */
+public class IncrementalSearch
+{
+	// Constants
+	private static final int MAX_STEPS = 32 ;
+
+	// Attributes
+	private final SearchIndex index ;
+	private final boolean typos ;
+	private Map<String, Float> launches ;
+	private final ArrayList<String> patterns ;
+	private final ArrayList<int[]> results ;
+
+
+	/**
+	 * Constructor to start a search.
+	 * @param index Applications to search
+	 * @param typos To accept names containing the pattern with typing mistakes
+	 * @param launches Recent number of launches by ComponentInfo to rank the results, or <code>null</code>
+	 */
+	public IncrementalSearch(SearchIndex index, boolean typos, Map<String, Float> launches)
+	{
+		this.index = index ;
+		this.typos = typos ;
+		this.launches = launches ;
+		patterns = new ArrayList<>() ;
+		results = new ArrayList<>() ;
+	}
+
+
+	/**
+	 * Replace the numbers of launches used to rank the results, keeping the previous matches.
+	 * @param launches Recent number of launches by ComponentInfo, or <code>null</code>
+	 */
+	public synchronized void setLaunches(Map<String, Float> launches)
+	{
+		this.launches = launches ;
+	}
+
+
+	/**
+	 * Search the applications matching the current pattern (can be called from a background thread).
+	 * @param search Pattern typed by the user
+	 * @return Matching applications, the best first
+	 */
+	public synchronized ArrayList<Application> filter(String search)
+	{
+		// Forget the results of the patterns which are not the start of the current one
+		String pattern = SearchIndex.normalize(search) ;
+		int last = patterns.size() - 1 ;
+		while((last >= 0) && !SearchIndex.isNarrowing(patterns.get(last), pattern, typos))
+		{
+			patterns.remove(last) ;
+			results.remove(last) ;
+			last-- ;
+		}
+
+		// Reuse the results of the same pattern (after a backspace), or search among the previous results
+		SearchIndex.TypoMatcher typoMatcher = SearchIndex.getTypoMatcher(pattern, typos) ;
+		if((last >= 0) && patterns.get(last).equals(pattern)) return index.getApplications(results.get(last), pattern, typoMatcher, launches) ;
+		int[] matches = index.match(pattern, typoMatcher, (last >= 0) ? results.get(last) : null) ;
+
+		// Remember the results, keeping only the most recent steps
+		if(patterns.size() >= MAX_STEPS)
+			{
+				patterns.remove(0) ;
+				results.remove(0) ;
+			}
+		patterns.add(pattern) ;
+		results.add(matches) ;
+		return index.getApplications(matches, pattern, typoMatcher, launches) ;
+	}
+}
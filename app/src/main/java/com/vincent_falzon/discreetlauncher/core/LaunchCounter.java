@@ -0,0 +1,240 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.Constants ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileBIN ;
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
+import java.io.IOException ;
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.ScheduledExecutorService ;
+import java.util.concurrent.ScheduledFuture ;
+import java.util.concurrent.TimeUnit ;
+
+/**
+ * Count how often each application is launched, with older launches counting less and less
+ * (halved every two weeks). The counters of a limited number of applications are kept in
+ * the internal storage, writing them a short time after a launch to group several launches, or
+ * as soon as the launcher leaves the screen as its process can then be killed.
+ * They are read from the internal storage in the background by <code>load()</code>, so that the
+ * main thread never waits for the disk. Can be used from several threads at once.
+ */
+public class LaunchCounter
+{
+	// Constants
+	private static final int MAGIC = 0x444C4C43 ;
+	private static final int FORMAT = 1 ;
+	private static final int MAX_ENTRIES = 256 ;
+	private static final double HALF_LIFE = 14 * 24 * 3600 * 1000.0 ;
+	private static final long SAVE_DELAY = 30 ;
+
+	// Attributes
+	private static final ScheduledExecutorService savingThread = Executors.newSingleThreadScheduledExecutor() ;
+	private static final HashMap<String, Float> counters = new HashMap<>() ;
+	private static final HashMap<String, Long> times = new HashMap<>() ;
+	private static boolean loaded = false ;
+	private static boolean save_pending = false ;
+	private static ScheduledFuture<?> scheduled_save = null ;
+	private static final Runnable saveTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				save() ;
+			}
+		} ;
+
+
+	/**
+	 * Count a launch of an application.
+	 * @param component_info ComponentInfo of the application
+	 */
+	public static synchronized void recordLaunch(String component_info)
+	{
+		// Add the launch to the decayed counter of the application
+		long now = System.currentTimeMillis() ;
+		float count = getCount(component_info, now) + 1 ;
+
+		// If the application is new and there is no room left, forget the least launched one
+		if(!counters.containsKey(component_info) && (counters.size() >= MAX_ENTRIES))
+			{
+				String least_launched = null ;
+				float least_count = Float.MAX_VALUE ;
+				for(String key : counters.keySet())
+				{
+					float key_count = getCount(key, now) ;
+					if(key_count < least_count)
+						{
+							least_count = key_count ;
+							least_launched = key ;
+						}
+				}
+				counters.remove(least_launched) ;
+				times.remove(least_launched) ;
+			}
+		counters.put(component_info, count) ;
+		times.put(component_info, now) ;
+
+		// Save the counters later, once for all the launches happening meanwhile
+		if(save_pending) return ;
+		save_pending = true ;
+		scheduled_save = savingThread.schedule(saveTask, SAVE_DELAY, TimeUnit.SECONDS) ;
+	}
+
+
+	/**
+	 * Write the launches not saved yet without waiting for the delay, in the background.
+	 */
+	public static synchronized void flush()
+	{
+		if(!save_pending) return ;
+		if(scheduled_save != null) scheduled_save.cancel(false) ;
+		scheduled_save = null ;
+		savingThread.execute(saveTask) ;
+	}
+
+
+	/**
+	 * Get the current counters of all applications launched, without reading the internal storage.
+	 * @return Decayed number of launches by ComponentInfo (only the recent launches if not loaded yet)
+	 */
+	public static synchronized HashMap<String, Float> getCounts()
+	{
+		long now = System.currentTimeMillis() ;
+		HashMap<String, Float> result = new HashMap<>() ;
+		for(String component_info : counters.keySet()) result.put(component_info, getCount(component_info, now)) ;
+		return result ;
+	}
+
+
+	/**
+	 * Get the counter of an application decayed up to now (to call with the lock).
+	 * @param component_info ComponentInfo of the application
+	 * @param now Current time in milliseconds
+	 * @return Decayed number of launches
+	 */
+	private static float getCount(String component_info, long now)
+	{
+		Float count = counters.get(component_info) ;
+		if(count == null) return 0 ;
+		long elapsed = Math.max(0, now - times.get(component_info)) ;
+		return (float)(count * Math.pow(0.5, elapsed / HALF_LIFE)) ;
+	}
+
+
+	/**
+	 * Load the counters from the internal storage the first time, adding them to the launches counted
+	 * meanwhile (to call from a background thread).
+	 */
+	public static void load()
+	{
+		// Check if the counters have already been loaded, then read the file without the lock
+		synchronized(LaunchCounter.class)
+		{
+			if(loaded) return ;
+		}
+		byte[] content = new InternalFileBIN(Constants.FILE_LAUNCHES).readAllBytes() ;
+
+		synchronized(LaunchCounter.class)
+		{
+			// Check if the counters have been loaded meanwhile by another thread
+			if(loaded) return ;
+			loaded = true ;
+			if(content == null) return ;
+
+			try
+			{
+				// Read the counters, ignoring the file if its format is unknown
+				DataInputStream input = new DataInputStream(new ByteArrayInputStream(content)) ;
+				if((input.readInt() != MAGIC) || (input.readInt() != FORMAT)) return ;
+				int count = input.readInt() ;
+				for(int i = 0 ; i < count ; i++)
+				{
+					String component_info = input.readUTF() ;
+					float saved_count = input.readFloat() ;
+					long saved_time = input.readLong() ;
+
+					// Add the saved counter to the one of the launches counted meanwhile, if any
+					if(counters.containsKey(component_info))
+						{
+							long time = times.get(component_info) ;
+							counters.put(component_info, counters.get(component_info) + (float)(saved_count * Math.pow(0.5, Math.max(0, time - saved_time) / HALF_LIFE))) ;
+						}
+						else if(counters.size() < MAX_ENTRIES)
+						{
+							counters.put(component_info, saved_count) ;
+							times.put(component_info, saved_time) ;
+						}
+				}
+			}
+			catch(IOException e)
+			{
+				// Keep the counters read before the error
+			}
+		}
+	}
+
+
+	/**
+	 * Write the counters to the internal storage (to call from the saving thread).
+	 */
+	private static void save()
+	{
+		// Load the counters first, so that the ones of the file are not lost
+		load() ;
+
+		try
+		{
+			// Encode the counters with the lock, as they can be updated meanwhile
+			ByteArrayOutputStream content = new ByteArrayOutputStream() ;
+			DataOutputStream output = new DataOutputStream(content) ;
+			synchronized(LaunchCounter.class)
+			{
+				save_pending = false ;
+				output.writeInt(MAGIC) ;
+				output.writeInt(FORMAT) ;
+				output.writeInt(counters.size()) ;
+				for(Map.Entry<String, Float> entry : counters.entrySet())
+				{
+					output.writeUTF(entry.getKey()) ;
+					output.writeFloat(entry.getValue()) ;
+					output.writeLong(times.get(entry.getKey())) ;
+				}
+			}
+			output.close() ;
+
+			// Write them outside of the lock
+			new InternalFileBIN(Constants.FILE_LAUNCHES).writeAllBytes(content.toByteArray()) ;
+		}
+		catch(IOException e)
+		{
+			// The counters will be saved after the next launch
+		}
+	}
+}
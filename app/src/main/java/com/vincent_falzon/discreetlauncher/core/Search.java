@@ -43,22 +43,28 @@ import android.widget.EditText ;
 import android.widget.LinearLayout ;
 import android.widget.PopupWindow ;
 import android.widget.TextView ;
+import androidx.preference.PreferenceManager ;
 import androidx.recyclerview.widget.RecyclerView ;
 import com.vincent_falzon.discreetlauncher.ActivityMain ;
 import com.vincent_falzon.discreetlauncher.Constants ;
 import com.vincent_falzon.discreetlauncher.FlexibleGridLayout ;
 import com.vincent_falzon.discreetlauncher.R ;
 import com.vincent_falzon.discreetlauncher.SearchAdapter ;
-import java.util.ArrayList ;
 
 /**
- * Represent the search application.
+ * Represent the search application. Its popup is created on the first opening and kept for the
+ * next ones, its results being recreated only when the applications have changed.
  */
 public class Search extends Application
 {
 	// Attributes
 	private PopupWindow popup ;
+	private EditText searchBar ;
+	private RecyclerView recycler ;
 	private SearchAdapter adapter ;
+	private SearchIndex searchIndex ;
+	private boolean typos ;
+	private final Runnable onSearchIndexReady ;
 
 
 	/**
@@ -70,18 +76,90 @@ public class Search extends Application
 	{
 		super(display_name, Constants.APK_SEARCH, Constants.APK_SEARCH, icon) ;
 		popup = null ;
+		onSearchIndexReady = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// Display the results if the popup is still opened
+					if((popup != null) && popup.isShowing()) refreshResults(popup.getContentView().getContext()) ;
+				}
+			} ;
 	}
 
 
 	/**
-	 * Display the content of the folder as a popup.
+	 * Take the name and icon of a search created by a more recent update, keeping the popup.
+	 * @param newSearch Search created by the update
+	 */
+	void updateFrom(Search newSearch)
+	{
+		display_name = newSearch.display_name ;
+		sort_key = newSearch.sort_key ;
+		setIcon(newSearch.icon) ;
+	}
+
+
+	/**
+	 * Display the search popup, reusing the one of the previous opening if possible.
 	 * @param parent Element from which the event originates
 	 * @return Always <code>true</code>
 	 */
 	public boolean start(View parent)
 	{
-		// Initializations
+		// Create the popup the first time, or again if the activity has been recreated meanwhile
 		Context context = parent.getContext() ;
+		if((popup == null) || (popup.getContentView().getContext() != context))
+			{
+				createPopup(context) ;
+				adapter = null ;
+			}
+
+		// Display the popup and the keyboard
+		popup.setHeight(Math.min(context.getResources().getDisplayMetrics().heightPixels / 2, parent.getRootView().getHeight())) ;
+		popup.showAtLocation(parent, Gravity.CENTER, 0, 0) ;
+		searchBar.requestFocus() ;
+		((InputMethodManager)context.getSystemService(Activity.INPUT_METHOD_SERVICE)).toggleSoftInputFromWindow(parent.getWindowToken(), InputMethod.SHOW_EXPLICIT, 0) ;
+
+		// Display the results, or fill the popup once the index being built in the background is ready
+		refreshResults(context) ;
+		return true ;
+	}
+
+
+	/**
+	 * Recreate the results only if the applications or the tolerance to typing mistakes have changed,
+	 * keeping the previous ones until the index of the current applications is ready.
+	 * @param context To get the settings
+	 */
+	private void refreshResults(Context context)
+	{
+		// Wait for the index of the current applications if it is still being built
+		SearchIndex currentIndex = ActivityMain.getApplicationsList().getSearchIndex(onSearchIndexReady) ;
+		if(currentIndex == null) return ;
+
+		// Search again the text typed meanwhile, if any, in the new results
+		boolean current_typos = PreferenceManager.getDefaultSharedPreferences(context).getBoolean(Constants.SEARCH_TYPOS, false) ;
+		if((adapter == null) || (currentIndex != searchIndex) || (current_typos != typos))
+			{
+				searchIndex = currentIndex ;
+				typos = current_typos ;
+				adapter = new SearchAdapter(context, searchIndex, typos) ;
+				recycler.setAdapter(adapter) ;
+				if(searchBar.getText().length() > 0) adapter.filter(searchBar.getText()) ;
+			}
+			else adapter.refreshLaunches() ;
+		recycler.scrollToPosition(0) ;
+	}
+
+
+	/**
+	 * Create the popup and its search bar, without the results.
+	 * @param context To inflate the popup
+	 */
+	private void createPopup(Context context)
+	{
+		// Initializations
 		LayoutInflater inflater = LayoutInflater.from(context) ;
 
 		// Prepare the popup view
@@ -90,7 +168,7 @@ public class Search extends Application
 		popupView.findViewById(R.id.close_popup).setOnClickListener(new PopupClickListener()) ;
 
 		// Prepare the search bar
-		EditText searchBar = popupView.findViewById(R.id.search_bar) ;
+		searchBar = popupView.findViewById(R.id.search_bar) ;
 		searchBar.setVisibility(View.VISIBLE) ;
 		searchBar.addTextChangedListener(new TextChangeListener()) ;
 		searchBar.setOnEditorActionListener(new TextView.OnEditorActionListener()
@@ -101,42 +179,37 @@ public class Search extends Application
 					// Perform an action when the user presses "Enter"
 					if(actionId == EditorInfo.IME_ACTION_DONE)
 						{
-							// If there is only one application remaining, start it
-							if(adapter.getItemCount() == 1)
-								{
-									adapter.getFirstItem().start(view) ;
-									return true ;
-								}
+							// Ignore an empty search, which would start the first application of the full list,
+							// or a search typed before the results are ready
+							if(searchBar.getText().toString().trim().isEmpty() || (adapter == null)) return false ;
+
+							// Start the best match for the current text, even if its search is still pending
+							return adapter.startBestMatch(searchBar.getText(), view) ;
 						}
 					return false ;
 				}
 			}) ;
 
-		// Retrieve all the applications without folders and the search
-		ArrayList<Application> applications = ActivityMain.getApplicationsList().getApplications(false) ;
-		Application search = null ;
-		for(Application application : applications)
-			if(application instanceof Search) search = application ;
-		if(search != null) applications.remove(search) ;
-
-		// Prepare the popup content
-		RecyclerView recycler = popupView.findViewById(R.id.popup_recycler) ;
-		adapter = new SearchAdapter(context, applications) ;
-		recycler.setAdapter(adapter) ;
+		// Prepare the popup content, which will contain the applications without folders and the search
+		recycler = popupView.findViewById(R.id.popup_recycler) ;
 		recycler.setLayoutManager(new FlexibleGridLayout(context, ActivityMain.getApplicationWidth())) ;
 
-		// Create the popup representing the folder
-		int popup_height = Math.min(context.getResources().getDisplayMetrics().heightPixels / 2, parent.getRootView().getHeight()) ;
-		popup = new PopupWindow(popupView, LinearLayout.LayoutParams.MATCH_PARENT, popup_height, true) ;
+		// Create the popup representing the search, its height being set when displayed
+		popup = new PopupWindow(popupView, LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT, true) ;
 		popupView.setOnTouchListener(new PopupTouchListener()) ;
 
 		// Fix popup not closing on press back with API 21
 		popup.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT)) ;
 
-		// Display the popup and the keyboard
-		popup.showAtLocation(parent, Gravity.CENTER, 0, 0) ;
-		((InputMethodManager)context.getSystemService(Activity.INPUT_METHOD_SERVICE)).toggleSoftInputFromWindow(parent.getWindowToken(), InputMethod.SHOW_EXPLICIT, 0) ;
-		return true ;
+		// Clear the search when the popup is closed, so that the next opening starts with all applications
+		popup.setOnDismissListener(new PopupWindow.OnDismissListener()
+			{
+				@Override
+				public void onDismiss()
+				{
+					searchBar.getText().clear() ;
+				}
+			}) ;
 	}
 
 
@@ -149,6 +222,20 @@ public class Search extends Application
 	}
 
 
+	/**
+	 * Forget the popup and its results, which are bound to the activity, when the activity is destroyed.
+	 */
+	public void releasePopup()
+	{
+		closePopup() ;
+		popup = null ;
+		searchBar = null ;
+		recycler = null ;
+		adapter = null ;
+		searchIndex = null ;
+	}
+
+
 	/**
 	 * Listen for a click on the popup.
 	 */
@@ -208,8 +295,8 @@ public class Search extends Application
 		@Override
 		public void onTextChanged(CharSequence text, int start, int before, int count)
 		{
-			// Update the display of the RecyclerView
-			adapter.getFilter().filter(text) ;
+			// Update the display of the RecyclerView, once the results are ready
+			if(adapter != null) adapter.filter(text) ;
 		}
 
 		// Needed to implement TextWatcher
@@ -0,0 +1,606 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.Constants ;
+import java.nio.charset.Charset ;
+import java.text.Normalizer ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.BitSet ;
+import java.util.List ;
+import java.util.Map ;
+
+/**
+ * Index the applications for the search, with their names normalized once per version of the
+ * applications list (case folded, without accents and with compatibility characters decomposed).
+ * A pattern matches a name if its characters appear in the same order, and the results are ranked
+ * by how well they match: complete name, start of the name, start of a word, initials, any part.
+ * Names in Cyrillic or Chinese characters also get a key in Latin letters, so that they can be found
+ * with a Latin keyboard: transliterated for Cyrillic ("telegram" for "Телеграм"), pinyin initials for
+ * Chinese ("wx" for "微信").
+ * Optionally, names containing the pattern with one or two typing mistakes can also match.
+ */
+public class SearchIndex
+{
+	// Constants
+	private static final int MIN_PACKAGE_SEARCH = 3 ;
+	private static final int MIN_ONE_TYPO = 5 ;
+	private static final int MIN_TWO_TYPOS = 9 ;
+	private static final int SCORE_EXACT = 1100 ;
+	private static final int SCORE_PREFIX = 1000 ;
+	private static final int SCORE_WORD_PREFIX = 900 ;
+	private static final int SCORE_CONTAINS = 800 ;
+	private static final int SCORE_INITIALS_PREFIX = 700 ;
+	private static final int SCORE_INITIALS = 650 ;
+	private static final int SCORE_LATIN_PREFIX = 640 ;
+	private static final int SCORE_LATIN = 630 ;
+	private static final int SCORE_SUBSEQUENCE = 100 ;
+	private static final int SCORE_FOLDER = 50 ;
+	private static final int SCORE_PACKAGE = 40 ;
+	private static final int SCORE_TYPO = 30 ;
+	private static final int MAX_LAUNCHES_BONUS = 90 ;
+	private static final double LAUNCHES_WEIGHT = 25 ;
+	private static final String[] CYRILLIC = { "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+		"r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya" } ;
+	private static final String PINYIN_INITIALS = "abcdefghjklmnopqrstwxyz" ;
+	private static final int[] PINYIN_GB2312_STARTS = { 0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE,
+		0xBBF7, 0xBFA6, 0xC0AC, 0xC2E8, 0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6, 0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA } ;
+
+	// Attributes
+	private final ArrayList<Application> applications ;
+	private final String[] components_infos ;
+	private final String[] names ;
+	private final BitSet[] words_starts ;
+	private final String[] initials ;
+	private final String[] latin_names ;
+	private final String[] packages ;
+	private final String[] folders ;
+
+
+	/**
+	 * Constructor to index applications.
+	 * @param applications Applications to search, in display order
+	 * @param folders_names Name of the folder containing each application, if any
+	 */
+	public SearchIndex(List<Application> applications, Map<Application, String> folders_names)
+	{
+		// Initializations
+		this.applications = new ArrayList<>(applications) ;
+		int size = this.applications.size() ;
+		components_infos = new String[size] ;
+		names = new String[size] ;
+		words_starts = new BitSet[size] ;
+		initials = new String[size] ;
+		latin_names = new String[size] ;
+		packages = new String[size] ;
+		folders = new String[size] ;
+
+		// Normalize the keys of each application and find the start of the words in its name
+		for(int i = 0 ; i < size ; i++)
+		{
+			Application application = this.applications.get(i) ;
+			components_infos[i] = application.getComponentInfo() ;
+			words_starts[i] = new BitSet() ;
+			names[i] = normalize(application.getDisplayName(), words_starts[i]) ;
+			StringBuilder name_initials = new StringBuilder() ;
+			for(int j = words_starts[i].nextSetBit(0) ; j >= 0 ; j = words_starts[i].nextSetBit(j + 1)) name_initials.append(names[i].charAt(j)) ;
+			initials[i] = name_initials.toString() ;
+			String latin_name = romanize(application.getDisplayName()) ;
+			if(latin_name != null) latin_names[i] = normalize(latin_name) ;
+			String apk = application.getApk() ;
+			if(!apk.equals(Constants.APK_SHORTCUT) && !apk.equals(Constants.APK_SHORTCUT_LEGACY)) packages[i] = normalize(apk) ;
+			String folder_name = folders_names.get(application) ;
+			if(folder_name != null) folders[i] = normalize(folder_name) ;
+		}
+	}
+
+
+	/**
+	 * Get the indexed applications.
+	 * @return Applications in display order (not to be modified)
+	 */
+	public ArrayList<Application> getApplications()
+	{
+		return applications ;
+	}
+
+
+	/**
+	 * Search the applications matching a pattern, see <code>score()</code>.
+	 * @param search Pattern typed by the user
+	 * @param typos To accept names containing the pattern with typing mistakes
+	 * @return Matching applications, the best first
+	 */
+	public ArrayList<Application> filter(String search, boolean typos)
+	{
+		String pattern = normalize(search) ;
+		TypoMatcher typoMatcher = getTypoMatcher(pattern, typos) ;
+		return getApplications(match(pattern, typoMatcher, null), pattern, typoMatcher, null) ;
+	}
+
+
+	/**
+	 * Prepare the search of names containing a pattern with typing mistakes: one from 5 characters,
+	 * two from 9 characters (shorter patterns would match too many names).
+	 * @param pattern Normalized pattern
+	 * @param typos To accept names containing the pattern with typing mistakes
+	 * @return A matcher, or <code>null</code> if no mistake is accepted
+	 */
+	static TypoMatcher getTypoMatcher(String pattern, boolean typos)
+	{
+		int max_typos = getMaxTypos(pattern, typos) ;
+		if(max_typos == 0) return null ;
+		return new TypoMatcher(pattern, max_typos) ;
+	}
+
+
+	/**
+	 * Define how many typing mistakes are accepted for a pattern.
+	 * @param pattern Normalized pattern
+	 * @param typos To accept names containing the pattern with typing mistakes
+	 * @return 0, 1 or 2
+	 */
+	private static int getMaxTypos(String pattern, boolean typos)
+	{
+		if(!typos || (pattern.length() < MIN_ONE_TYPO) || (pattern.length() > Long.SIZE)) return 0 ;
+		return (pattern.length() < MIN_TWO_TYPOS) ? 1 : 2 ;
+	}
+
+
+	/**
+	 * Search the applications matching a normalized pattern among candidates.
+	 * @param pattern Normalized pattern
+	 * @param typoMatcher To accept typing mistakes, or <code>null</code>
+	 * @param candidates Positions of the applications to check in ascending order, or <code>null</code> for all
+	 * @return Positions of the matching applications in ascending order
+	 */
+	int[] match(String pattern, TypoMatcher typoMatcher, int[] candidates)
+	{
+		int count = (candidates == null) ? names.length : candidates.length ;
+		int[] result = new int[count] ;
+		int found = 0 ;
+		for(int j = 0 ; j < count ; j++)
+		{
+			int i = (candidates == null) ? j : candidates[j] ;
+			if(score(i, pattern, typoMatcher) >= 0) result[found++] = i ;
+		}
+		return Arrays.copyOf(result, found) ;
+	}
+
+
+	/**
+	 * Check if the applications matching a pattern can be searched only among the ones matching a previous
+	 * pattern, which is the case when characters are added at the end (if the package names rule and the
+	 * number of accepted typing mistakes are the same).
+	 * @param previous Previous normalized pattern
+	 * @param pattern New normalized pattern
+	 * @param typos To accept names containing the pattern with typing mistakes
+	 * @return <code>true</code> if the new results are part of the previous ones, <code>false</code> otherwise
+	 */
+	static boolean isNarrowing(String previous, String pattern, boolean typos)
+	{
+		if(!pattern.startsWith(previous)) return false ;
+		if(getMaxTypos(previous, typos) != getMaxTypos(pattern, typos)) return false ;
+		return (previous.length() >= MIN_PACKAGE_SEARCH) || (pattern.length() < MIN_PACKAGE_SEARCH) ;
+	}
+
+
+	/**
+	 * Get the applications at some positions of the index, ranked for a pattern. The results are sorted
+	 * by kind of match first, then the most launched applications get a bonus growing slowly with their
+	 * number of launches, so that they only move up among the matches of the same kind.
+	 * @param positions Positions of applications matching the pattern, in ascending order
+	 * @param pattern Normalized pattern
+	 * @param typoMatcher To accept typing mistakes, or <code>null</code>
+	 * @param launches Recent number of launches by ComponentInfo, or <code>null</code> to ignore them
+	 * @return Applications with the best score first, in display order when equal
+	 */
+	ArrayList<Application> getApplications(int[] positions, String pattern, TypoMatcher typoMatcher, Map<String, Float> launches)
+	{
+		// Sort by decreasing kind of match, bonus and score, then increasing position, in a single array of primitives
+		long[] ranking = new long[positions.length] ;
+		for(int j = 0 ; j < positions.length ; j++)
+		{
+			int score = score(positions[j], pattern, typoMatcher) ;
+			int bonus = (launches == null) ? 0 : getLaunchesBonus(launches.get(components_infos[positions[j]])) ;
+			ranking[j] = ((long)(SCORE_EXACT - getKind(score)) << 50) | ((long)(MAX_LAUNCHES_BONUS - bonus) << 43)
+					| ((long)(SCORE_EXACT - score) << 32) | positions[j] ;
+		}
+		Arrays.sort(ranking) ;
+
+		// Retrieve the applications
+		ArrayList<Application> result = new ArrayList<>(positions.length) ;
+		for(long rank : ranking) result.add(applications.get((int)rank)) ;
+		return result ;
+	}
+
+
+	/**
+	 * Get the kind of match of a score, the same for all the scores of a kind varying with the position
+	 * of the pattern in the name.
+	 * @param score Score of an application
+	 * @return Score of the best match of the same kind
+	 */
+	private static int getKind(int score)
+	{
+		if((score > SCORE_INITIALS_PREFIX) && (score <= SCORE_CONTAINS)) return SCORE_CONTAINS ;
+		if((score >= SCORE_SUBSEQUENCE) && (score < SCORE_LATIN)) return SCORE_SUBSEQUENCE ;
+		return score ;
+	}
+
+
+	/**
+	 * Convert a number of launches into a score bonus.
+	 * @param launches Recent number of launches, or <code>null</code> if never launched
+	 * @return Bonus between 0 and <code>MAX_LAUNCHES_BONUS</code>
+	 */
+	private static int getLaunchesBonus(Float launches)
+	{
+		if((launches == null) || (launches <= 0)) return 0 ;
+		return (int)Math.min(MAX_LAUNCHES_BONUS, Math.round(LAUNCHES_WEIGHT * Math.log1p(launches))) ;
+	}
+
+
+	/**
+	 * Evaluate how well an application matches a pattern. Its name is checked first, then its folder
+	 * name (anywhere), then its package name (from 3 characters and at the start of a part after
+	 * the first one, for example "firefox" in "org.mozilla.firefox"), and finally its name with typing mistakes.
+	 * @param i Position of the application
+	 * @param pattern Normalized pattern
+	 * @param typoMatcher To accept typing mistakes, or <code>null</code>
+	 * @return Score, higher is better, or -1 if it does not match
+	 */
+	private int score(int i, String pattern, TypoMatcher typoMatcher)
+	{
+		// Check if the name contains the pattern, preferably at the start of a word
+		String name = names[i] ;
+		int position = name.indexOf(pattern) ;
+		if(position == 0) return (name.length() == pattern.length()) ? SCORE_EXACT : SCORE_PREFIX ;
+		if(position > 0)
+			{
+				for(int word = position ; word >= 0 ; word = name.indexOf(pattern, word + 1))
+					if(words_starts[i].get(word)) return SCORE_WORD_PREFIX ;
+				return SCORE_CONTAINS - Math.min(position, 99) ;
+			}
+
+		// Check if the pattern is made of the initials of the words ("gm" for "Google Maps")
+		if(initials[i].startsWith(pattern)) return SCORE_INITIALS_PREFIX ;
+		if(initials[i].contains(pattern)) return SCORE_INITIALS ;
+
+		// Check the name written in Latin letters, if it uses another alphabet
+		if(latin_names[i] != null)
+			{
+				int latin_position = latin_names[i].indexOf(pattern) ;
+				if(latin_position == 0) return SCORE_LATIN_PREFIX ;
+				if(latin_position > 0) return SCORE_LATIN ;
+			}
+
+		// Check if the characters appear in the same order in the name
+		int subsequence = scoreSubsequence(i, pattern) ;
+		if(subsequence >= 0) return subsequence ;
+
+		// Check the folder and package names
+		if((folders[i] != null) && folders[i].contains(pattern)) return SCORE_FOLDER ;
+		if((pattern.length() >= MIN_PACKAGE_SEARCH) && (packages[i] != null) && matchesPackage(packages[i], pattern)) return SCORE_PACKAGE ;
+
+		// Check if the name contains the pattern with typing mistakes
+		if(typoMatcher == null) return -1 ;
+		int typos = typoMatcher.countTypos(name) ;
+		if(typos > typoMatcher.max_typos) return -1 ;
+		return SCORE_TYPO - 10 * typos ;
+	}
+
+
+	/**
+	 * Evaluate how well the characters of a pattern appear in the same order in a name, taking each
+	 * character at the start of a word when possible (if the next characters still appear after it),
+	 * and rewarding consecutive characters.
+	 * @param i Position of the application
+	 * @param pattern Normalized pattern
+	 * @return Score between <code>SCORE_SUBSEQUENCE</code> and <code>SCORE_LATIN</code> (excluded), or -1 if it does not match
+	 */
+	private int scoreSubsequence(int i, String pattern)
+	{
+		// Check that the pattern appears, taking each character at its first occurrence
+		String name = names[i] ;
+		if(!isSubsequence(name, 0, pattern, 0)) return -1 ;
+
+		int bonus = 0 ;
+		int last = -1 ;
+		for(int j = 0 ; j < pattern.length() ; j++)
+		{
+			// Find the next occurrence of the character, or a later one at the start of a word
+			// if the rest of the pattern still appears after it
+			char character = pattern.charAt(j) ;
+			int found = name.indexOf(character, last + 1) ;
+			if(!words_starts[i].get(found) && (found != last + 1))
+				for(int word = words_starts[i].nextSetBit(found + 1) ; word >= 0 ; word = words_starts[i].nextSetBit(word + 1))
+					if((name.charAt(word) == character) && isSubsequence(name, word + 1, pattern, j + 1))
+						{
+							found = word ;
+							break ;
+						}
+
+			// Reward the starts of words and the consecutive characters, penalize the gaps
+			if(words_starts[i].get(found)) bonus += 10 ;
+				else if(found == last + 1) bonus += 5 ;
+				else bonus -= Math.min(found - last - 1, 5) ;
+			last = found ;
+		}
+		return SCORE_SUBSEQUENCE + Math.max(0, Math.min(bonus, SCORE_LATIN - SCORE_SUBSEQUENCE - 1)) ;
+	}
+
+
+	/**
+	 * Check if the end of a pattern appears in the same order in the end of a name.
+	 * @param name Normalized name
+	 * @param name_start Position in the name from which to search
+	 * @param pattern Normalized pattern
+	 * @param pattern_start Position of the first character of the pattern to search
+	 * @return <code>true</code> if all the characters are found, <code>false</code> otherwise
+	 */
+	private static boolean isSubsequence(String name, int name_start, String pattern, int pattern_start)
+	{
+		int position = name_start - 1 ;
+		for(int j = pattern_start ; j < pattern.length() ; j++)
+		{
+			position = name.indexOf(pattern.charAt(j), position + 1) ;
+			if(position < 0) return false ;
+		}
+		return true ;
+	}
+
+
+	/**
+	 * Check if a pattern is at the start of a part of a package name, except the first one.
+	 * @param apk Normalized package name
+	 * @param pattern Normalized pattern
+	 * @return <code>true</code> if it matches, <code>false</code> otherwise
+	 */
+	private static boolean matchesPackage(String apk, String pattern)
+	{
+		int position = apk.indexOf(pattern, 1) ;
+		while(position > 0)
+		{
+			if(apk.charAt(position - 1) == '.') return true ;
+			position = apk.indexOf(pattern, position + 1) ;
+		}
+		return false ;
+	}
+
+
+	/**
+	 * Search a pattern in names with typing mistakes (inserted, removed or replaced characters) using
+	 * the bit-parallel algorithm of Myers for approximate string matching. The state of the whole pattern
+	 * (up to 64 characters) is updated at once for each character of a name.
+	 */
+	static class TypoMatcher
+	{
+		// Attributes
+		private final int length ;
+		private final int max_typos ;
+		private final long[] ascii_masks ;
+		private final char[] other_characters ;
+		private final long[] other_masks ;
+
+
+		/**
+		 * Constructor to prepare the positions of each character in the pattern.
+		 * @param pattern Normalized pattern, up to 64 characters
+		 * @param max_typos Maximum number of typing mistakes accepted
+		 */
+		TypoMatcher(String pattern, int max_typos)
+		{
+			// Initializations
+			length = pattern.length() ;
+			this.max_typos = max_typos ;
+			ascii_masks = new long[128] ;
+			StringBuilder others = new StringBuilder() ;
+			for(int i = 0 ; i < length ; i++)
+			{
+				char character = pattern.charAt(i) ;
+				if((character >= 128) && (others.indexOf(String.valueOf(character)) < 0)) others.append(character) ;
+			}
+			other_characters = others.toString().toCharArray() ;
+			other_masks = new long[other_characters.length] ;
+
+			// Mark the positions of each character in the pattern
+			for(int i = 0 ; i < length ; i++)
+			{
+				char character = pattern.charAt(i) ;
+				if(character < 128) ascii_masks[character] |= 1L << i ;
+					else for(int j = 0 ; j < other_characters.length ; j++)
+						if(other_characters[j] == character) other_masks[j] |= 1L << i ;
+			}
+		}
+
+
+		/**
+		 * Get the positions of a character in the pattern.
+		 * @param character Character of a name
+		 * @return Bit mask of the positions
+		 */
+		private long getMask(char character)
+		{
+			if(character < 128) return ascii_masks[character] ;
+			for(int j = 0 ; j < other_characters.length ; j++)
+				if(other_characters[j] == character) return other_masks[j] ;
+			return 0 ;
+		}
+
+
+		/**
+		 * Find the smallest number of typing mistakes needed to find the pattern somewhere in a name.
+		 * @param name Normalized name
+		 * @return Number of mistakes, stopping early when it is at most the accepted number
+		 */
+		int countTypos(String name)
+		{
+			// Vertical differences of the edit distances between the pattern and the end of the name read
+			long positive = -1L ;
+			long negative = 0L ;
+			long last = 1L << (length - 1) ;
+			int typos = length ;
+			int best = length ;
+			for(int i = 0 ; i < name.length() ; i++)
+			{
+				// Compute the horizontal differences and the distance for the whole pattern
+				long equal = getMask(name.charAt(i)) ;
+				long vertical = equal | negative ;
+				long horizontal = (((equal & positive) + positive) ^ positive) | equal ;
+				long horizontal_positive = negative | ~(horizontal | positive) ;
+				long horizontal_negative = positive & horizontal ;
+				if((horizontal_positive & last) != 0) typos++ ;
+					else if((horizontal_negative & last) != 0) typos-- ;
+				if(typos < best)
+					{
+						best = typos ;
+						if(best <= max_typos) return best ;
+					}
+
+				// The pattern can start anywhere in the name, so the first row stays at zero
+				horizontal_positive <<= 1 ;
+				horizontal_negative <<= 1 ;
+				positive = horizontal_negative | ~(vertical | horizontal_positive) ;
+				negative = horizontal_positive & vertical ;
+			}
+			return best ;
+		}
+	}
+
+
+	/**
+	 * Write a name in Latin letters: Cyrillic letters are transliterated and the most common Chinese
+	 * characters (level 1 of GB2312, sorted by pronunciation) are replaced by the initial of their pinyin.
+	 * @param text Name to convert
+	 * @return Converted name, or <code>null</code> if it contains neither Cyrillic nor Chinese characters
+	 */
+	private static String romanize(String text)
+	{
+		StringBuilder result = new StringBuilder(text.length()) ;
+		boolean converted = false ;
+		Charset gbk = null ;
+		for(int i = 0 ; i < text.length() ; i++)
+		{
+			// Transliterate the Russian, Ukrainian and Belarusian letters
+			char character = Character.toLowerCase(text.charAt(i)) ;
+			String latin = null ;
+			if((character >= 'а') && (character <= 'я')) latin = CYRILLIC[character - 'а'] ;
+				else switch(character)
+				{
+					case 'ё' : latin = "yo" ; break ;
+					case 'є' : latin = "ye" ; break ;
+					case 'і' : latin = "i" ; break ;
+					case 'ї' : latin = "yi" ; break ;
+					case 'ў' : latin = "u" ; break ;
+					case 'ґ' : latin = "g" ; break ;
+				}
+
+			// Find the pinyin initial of the Chinese characters from their position in GB2312
+			if((latin == null) && (Character.UnicodeBlock.of(character) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS))
+				{
+					if(gbk == null) gbk = Charset.forName("GBK") ;
+					byte[] code = String.valueOf(character).getBytes(gbk) ;
+					if(code.length == 2)
+						{
+							int position = ((code[0] & 0xFF) << 8) | (code[1] & 0xFF) ;
+							for(int j = 0 ; j < PINYIN_INITIALS.length() ; j++)
+								if((position >= PINYIN_GB2312_STARTS[j]) && (position < PINYIN_GB2312_STARTS[j + 1]))
+									latin = String.valueOf(PINYIN_INITIALS.charAt(j)) ;
+						}
+				}
+
+			// Keep the other characters
+			if(latin == null) result.append(character) ;
+				else
+				{
+					result.append(latin) ;
+					converted = true ;
+				}
+		}
+		return converted ? result.toString() : null ;
+	}
+
+
+	/**
+	 * Normalize a text for the search: compatibility characters are decomposed ("ﬁ" to "fi"), accents
+	 * are removed ("é" to "e", "ё" to "е"), letters without decomposition are replaced ("ß" to "ss")
+	 * and the result is in lower case.
+	 * @param text Text to normalize
+	 * @return Normalized text
+	 */
+	public static String normalize(String text)
+	{
+		return normalize(text, null) ;
+	}
+
+
+	/**
+	 * Normalize a text for the search and find where its words start: after a character which is not
+	 * a letter or a digit, at an upper case letter following a lower case one ("WhatsApp"), and at the
+	 * change between letters and digits.
+	 * @param text Text to normalize
+	 * @param words_starts Filled with the positions of the words in the normalized text, or <code>null</code>
+	 * @return Normalized text
+	 */
+	private static String normalize(String text, BitSet words_starts)
+	{
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD) ;
+		StringBuilder result = new StringBuilder(decomposed.length()) ;
+		boolean previous_letter = false ;
+		boolean previous_digit = false ;
+		boolean previous_lower = false ;
+		for(int i = 0 ; i < decomposed.length() ; i++)
+		{
+			// Skip the accents
+			char character = decomposed.charAt(i) ;
+			if(Character.getType(character) == Character.NON_SPACING_MARK) continue ;
+
+			// Mark the start of the words
+			boolean letter = Character.isLetter(character) ;
+			boolean digit = Character.isDigit(character) ;
+			if((words_starts != null) && (letter || digit))
+				if((!previous_letter && !previous_digit) || (letter && previous_digit) || (digit && previous_letter)
+						|| (previous_lower && Character.isUpperCase(character)))
+					words_starts.set(result.length()) ;
+			previous_letter = letter ;
+			previous_digit = digit ;
+			previous_lower = Character.isLowerCase(character) ;
+
+			// Replace the letters without decomposition and convert to lower case
+			switch(character)
+			{
+				case 'ß' : result.append("ss") ; break ;
+				case 'Æ' : case 'æ' : result.append("ae") ; break ;
+				case 'Œ' : case 'œ' : result.append("oe") ; break ;
+				case 'Ø' : case 'ø' : result.append('o') ; break ;
+				case 'Ł' : case 'ł' : result.append('l') ; break ;
+				case 'Đ' : case 'đ' : result.append('d') ; break ;
+				default : result.append(Character.toLowerCase(character)) ;
+			}
+		}
+		return result.toString() ;
+	}
+}
@@ -27,10 +27,10 @@ import android.content.BroadcastReceiver ;
 import android.content.Context ;
 import android.content.Intent ;
 import android.content.IntentFilter ;
-import static com.vincent_falzon.discreetlauncher.ActivityMain.updateList ;
+import static com.vincent_falzon.discreetlauncher.ActivityMain.updatePackage ;
 
 /**
- * Listen for packages additions and deletions.
+ * Listen for packages additions, deletions, updates and changes.
  */
 public class PackagesListener extends BroadcastReceiver
 {
@@ -43,6 +43,7 @@ public class PackagesListener extends BroadcastReceiver
 		IntentFilter filter = new IntentFilter() ;
 		filter.addAction(Intent.ACTION_PACKAGE_ADDED) ;
 		filter.addAction(Intent.ACTION_PACKAGE_REMOVED) ;
+		filter.addAction(Intent.ACTION_PACKAGE_CHANGED) ;
 		filter.addDataScheme("package") ;
 		return filter ;
 	}
@@ -56,14 +57,27 @@ public class PackagesListener extends BroadcastReceiver
 	@Override
 	public void onReceive(Context context, Intent intent)
 	{
-		// Check if the intent as a valid action
-		if(intent.getAction() == null) return ;
+		// Check if the intent as a valid action and retrieve the package name
+		if((intent.getAction() == null) || (intent.getData() == null)) return ;
+		String apk = intent.getData().getSchemeSpecificPart() ;
+		if(apk == null) return ;
+		boolean replacing = intent.getBooleanExtra(Intent.EXTRA_REPLACING, false) ;
 
-		// Do not react to applications updates
-		if(intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) return ;
-
-		// If a package has been added or removed, update the applications list
-		if((intent.getAction().equals(Intent.ACTION_PACKAGE_ADDED) ||
-			intent.getAction().equals(Intent.ACTION_PACKAGE_REMOVED))) updateList(context) ;
+		// Update only the applications of this package
+		switch(intent.getAction())
+		{
+			case Intent.ACTION_PACKAGE_ADDED :
+				// Installation, or end of an update (labels and icons may have changed)
+				updatePackage(context, apk, !replacing) ;
+				break ;
+			case Intent.ACTION_PACKAGE_REMOVED :
+				// Ignore the beginning of an update as it is followed by an addition
+				if(!replacing) updatePackage(context, apk, true) ;
+				break ;
+			case Intent.ACTION_PACKAGE_CHANGED :
+				// Components enabled or disabled
+				updatePackage(context, apk, false) ;
+				break ;
+		}
 	}
 }
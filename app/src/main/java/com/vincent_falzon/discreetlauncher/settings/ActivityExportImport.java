@@ -168,6 +168,9 @@ public class ActivityExportImport extends AppCompatActivity implements View.OnCl
 		exportedData.add(exportBooleanSetting(Constants.IMMERSIVE_MODE, false)) ;
 		exportedData.add(exportBooleanSetting(Constants.REVERSE_INTERFACE, false)) ;
 		exportedData.add(exportBooleanSetting(Constants.TOUCH_TARGETS, false)) ;
+		exportedData.add(exportBooleanSetting(Constants.SEARCH_TYPOS, false)) ;
+		exportedData.add(exportBooleanSetting(Constants.LAZY_ICONS, false)) ;
+		exportedData.add(exportBooleanSetting(Constants.ICON_ATLAS, false)) ;
 		exportedData.add("#") ;
 
 		// Save all custom icons
@@ -289,6 +292,9 @@ public class ActivityExportImport extends AppCompatActivity implements View.OnCl
 				else if(line.startsWith(Constants.IMMERSIVE_MODE)) loadBooleanSetting(Constants.IMMERSIVE_MODE, line) ;
 				else if(line.startsWith(Constants.REVERSE_INTERFACE)) loadBooleanSetting(Constants.REVERSE_INTERFACE, line) ;
 				else if(line.startsWith(Constants.TOUCH_TARGETS)) loadBooleanSetting(Constants.TOUCH_TARGETS, line) ;
+				else if(line.startsWith(Constants.SEARCH_TYPOS)) loadBooleanSetting(Constants.SEARCH_TYPOS, line) ;
+				else if(line.startsWith(Constants.LAZY_ICONS)) loadBooleanSetting(Constants.LAZY_ICONS, line) ;
+				else if(line.startsWith(Constants.ICON_ATLAS)) loadBooleanSetting(Constants.ICON_ATLAS, line) ;
 				// Save the shortcuts icons
 				else if(line.startsWith(Constants.FILE_ICON_SHORTCUT_PREFIX))
 				{
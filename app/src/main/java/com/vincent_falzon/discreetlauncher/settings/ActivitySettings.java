@@ -33,8 +33,10 @@ import android.os.Bundle ;
 import android.view.MenuItem ;
 import androidx.appcompat.app.AppCompatActivity ;
 import androidx.preference.ListPreference ;
+import androidx.preference.Preference ;
 import androidx.preference.PreferenceFragmentCompat ;
 import androidx.preference.PreferenceManager ;
+import com.vincent_falzon.discreetlauncher.BuildConfig ;
 import com.vincent_falzon.discreetlauncher.Constants ;
 import com.vincent_falzon.discreetlauncher.R ;
 import java.util.ArrayList ;
@@ -215,6 +217,10 @@ public class ActivitySettings extends AppCompatActivity
 		{
 			// Load the settings from the XML file
 			setPreferencesFromResource(R.xml.settings_operation, rootKey) ;
+
+			// Show the performance traces setting only in debug builds
+			Preference tracing = findPreference(Constants.DEBUG_TRACING) ;
+			if((tracing != null) && !BuildConfig.DEBUG) tracing.setVisible(false) ;
 		}
 	}
 
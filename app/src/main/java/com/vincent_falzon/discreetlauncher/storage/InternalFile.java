@@ -26,7 +26,6 @@ package com.vincent_falzon.discreetlauncher.storage ;
 import android.content.Context ;
 import java.io.File ;
 import java.io.FilenameFilter ;
-import static com.vincent_falzon.discreetlauncher.ActivityMain.getInternalFolder ;
 
 /**
  * Manage the storage of an internal file.
@@ -34,16 +33,27 @@ import static com.vincent_falzon.discreetlauncher.ActivityMain.getInternalFolder
 public class InternalFile
 {
 	// Attributes
+	private static String folder = null ;
 	final File file ;
 
 
+	/**
+	 * Define the internal files folder location (must be initialized by ActivityMain).
+	 * @param path Internal files folder location on the system
+	 */
+	public static void setFolder(String path)
+	{
+		folder = path ;
+	}
+
+
 	/**
 	 * Constructor to create or open an internal file.
 	 * @param filename Name of the file including the extension
 	 */
 	InternalFile(String filename)
 	{
-		file = new File(getInternalFolder(), filename) ;
+		file = new File(folder, filename) ;
 	}
 
 
@@ -85,7 +95,7 @@ public class InternalFile
 	 */
 	public boolean rename(String new_filename)
 	{
-		return file.renameTo(new File(getInternalFolder(), new_filename)) ;
+		return file.renameTo(new File(folder, new_filename)) ;
 	}
 
 
@@ -0,0 +1,99 @@
+package com.vincent_falzon.discreetlauncher.storage ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import java.io.FileInputStream ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+
+/**
+ * Manage the storage of an internal binary file.
+ */
+public class InternalFileBIN extends InternalFile
+{
+	/**
+	 * Constructor to create or open an internal binary file.
+	 * @param filename Name of the file including the extension
+	 */
+	public InternalFileBIN(String filename)
+	{
+		super(filename) ;
+	}
+
+
+	/**
+	 * Read the whole internal file at once.
+	 * @return Content of the file or <code>null</code> if an error happened
+	 */
+	public byte[] readAllBytes()
+	{
+		// Check if the file exists
+		if(!exists()) return null ;
+
+		try
+		{
+			// Read the content from the file in a single buffer
+			byte[] content = new byte[(int)file.length()] ;
+			FileInputStream input_file = new FileInputStream(file) ;
+			int read = 0 ;
+			while(read < content.length)
+			{
+				int count = input_file.read(content, read, content.length - read) ;
+				if(count < 0) break ;
+				read += count ;
+			}
+			input_file.close() ;
+			if(read < content.length) return null ;
+			return content ;
+		}
+		catch(IOException e)
+		{
+			// An error happened while reading the file
+			return null ;
+		}
+	}
+
+
+	/**
+	 * Replace the content of the file (create it if not existing yet).
+	 * @param content Bytes that should be written to the file
+	 * @return <code>true</code> if successful, <code>false</code> otherwise
+	 */
+	public boolean writeAllBytes(byte[] content)
+	{
+		try
+		{
+			// Write all bytes in the file at once
+			FileOutputStream output_file = new FileOutputStream(file, false) ;
+			output_file.write(content) ;
+			output_file.close() ;
+			return true ;
+		}
+		catch(IOException e)
+		{
+			// An error happened while writing the file
+			return false ;
+		}
+	}
+}
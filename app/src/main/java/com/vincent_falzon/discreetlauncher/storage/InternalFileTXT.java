@@ -112,6 +112,34 @@ public class InternalFileTXT extends InternalFile
 	}
 
 
+	/**
+	 * Replace the content of the file by an array of lines (create it if not existing yet).
+	 * After each line, a new line character is added.
+	 * @param content Lines that should be written to the file
+	 * @return <code>true</code> if successful, <code>false</code> otherwise
+	 */
+	public boolean writeAllLines(ArrayList<String> content)
+	{
+		try
+		{
+			// Write all lines in the file at once
+			FileWriter writer = new FileWriter(file, false) ;
+			for(String line : content)
+			{
+				writer.write(line) ;
+				writer.write(System.lineSeparator()) ;
+			}
+			writer.close() ;
+			return true ;
+		}
+		catch (Exception e)
+		{
+			// An error happened while writing the lines
+			return false ;
+		}
+	}
+
+
 	/**
 	 * Search a line in a file and remove it if it exists.
 	 * @param to_remove Line to search and remove
@@ -0,0 +1,93 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.List ;
+import org.junit.Test ;
+import static org.junit.Assert.assertEquals ;
+
+/**
+ * Check the search of applications by name.
+ */
+public class SearchIndexTest
+{
+	/**
+	 * Build an index from a list of names.
+	 * @param names Display names of the applications
+	 * @return Index of the applications
+	 */
+	private static SearchIndex buildIndex(String... names)
+	{
+		List<Application> applications = new ArrayList<>() ;
+		for(String name : names) applications.add(new Application(name, "com.example." + applications.size(), "com.example", null)) ;
+		return new SearchIndex(applications, new HashMap<>()) ;
+	}
+
+
+	/**
+	 * A character taken at a later start of word must not prevent the rest of the pattern from matching.
+	 */
+	@Test
+	public void subsequenceKeepsEarliestOccurrenceWhenWordStartFails()
+	{
+		ArrayList<Application> results = buildIndex("Xabc A").filter("ac", false) ;
+		assertEquals(1, results.size()) ;
+		assertEquals("Xabc A", results.get(0).getDisplayName()) ;
+	}
+
+
+	/**
+	 * The starts of words are still preferred when the rest of the pattern follows them.
+	 */
+	@Test
+	public void subsequenceMatchesStartsOfWords()
+	{
+		ArrayList<Application> results = buildIndex("Google Maps").filter("gmp", false) ;
+		assertEquals(1, results.size()) ;
+		assertEquals("Google Maps", results.get(0).getDisplayName()) ;
+	}
+
+
+	/**
+	 * The launches only rank the matches of the same kind, never above a better kind of match.
+	 */
+	@Test
+	public void launchesDoNotOutrankBetterMatches()
+	{
+		// "ab" is the initials of "Alpha Beta" and in the Latin name of "Аб" (launched often)
+		HashMap<String, Float> launches = new HashMap<>() ;
+		launches.put("{com.example/com.example.1}", 1000f) ;
+		ArrayList<Application> results = new IncrementalSearch(buildIndex("Alpha Beta", "Аб"), false, launches).filter("ab") ;
+		assertEquals(2, results.size()) ;
+		assertEquals("Alpha Beta", results.get(0).getDisplayName()) ;
+
+		// Between two matches of the same kind, the most launched comes first
+		launches.clear() ;
+		launches.put("{com.example/com.example.1}", 10f) ;
+		results = new IncrementalSearch(buildIndex("Xab", "Yab"), false, launches).filter("ab") ;
+		assertEquals("Yab", results.get(0).getDisplayName()) ;
+	}
+}
@@ -0,0 +1,111 @@
+package com.vincent_falzon.discreetlauncher.benchmark ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.core.Application ;
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.Comparator ;
+import java.util.Locale ;
+
+/**
+ * Measure the sort of the catalog by display name, as done when the applications list is built.
+ */
+@State(Scope.Benchmark)
+public class CatalogSortBenchmark
+{
+	// Parameters
+	@Param({ "100", "1000", "10000" })
+	public int size ;
+	@Param({ "en", "fr", "ru" })
+	public String language ;
+
+	// Attributes
+	private ArrayList<Application> applications ;
+	private ArrayList<String> labels ;
+
+
+	/**
+	 * Generate the catalog in the requested language.
+	 */
+	@Setup
+	public void setUp()
+	{
+		Locale.setDefault(Locale.forLanguageTag(language)) ;
+		applications = new SyntheticCatalog(size).getApplications() ;
+		labels = new ArrayList<>(applications.size()) ;
+		for(Application application : applications) labels.add(application.getDisplayName()) ;
+	}
+
+
+	/**
+	 * Sort the applications with their precomputed collation keys.
+	 * @return Sorted list
+	 */
+	@Benchmark
+	public ArrayList<Application> sortWithCollationKeys()
+	{
+		ArrayList<Application> sorted = new ArrayList<>(applications) ;
+		Collections.sort(sorted) ;
+		return sorted ;
+	}
+
+
+	/**
+	 * Sort the applications by comparing their display names ignoring case (reference).
+	 * @return Sorted list
+	 */
+	@Benchmark
+	public ArrayList<Application> sortIgnoringCase()
+	{
+		ArrayList<Application> sorted = new ArrayList<>(applications) ;
+		Collections.sort(sorted, new Comparator<Application>()
+		{
+			@Override
+			public int compare(Application application1, Application application2)
+			{
+				return application1.getDisplayName().compareToIgnoreCase(application2.getDisplayName()) ;
+			}
+		}) ;
+		return sorted ;
+	}
+
+
+	/**
+	 * Create the applications, which computes their collation keys.
+	 * @return Created applications
+	 */
+	@Benchmark
+	public ArrayList<Application> createApplications()
+	{
+		ArrayList<Application> created = new ArrayList<>(labels.size()) ;
+		for(String label : labels) created.add(new Application(label, "org.example.MainActivity", "org.example", null)) ;
+		return created ;
+	}
+}
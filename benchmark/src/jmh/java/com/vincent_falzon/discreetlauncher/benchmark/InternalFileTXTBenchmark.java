@@ -0,0 +1,92 @@
+package com.vincent_falzon.discreetlauncher.benchmark ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.core.Application ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFile ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileTXT ;
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import org.openjdk.jmh.annotations.TearDown ;
+import java.io.File ;
+import java.io.IOException ;
+import java.nio.file.Files ;
+import java.util.ArrayList ;
+
+/**
+ * Measure the reading of an internal text file, as done for the favorites, hidden, folders and cache files.
+ */
+@State(Scope.Benchmark)
+public class InternalFileTXTBenchmark
+{
+	// Constants
+	private static final String FILENAME = "benchmark.txt" ;
+
+	// Parameters
+	@Param({ "100", "1000", "10000" })
+	public int size ;
+
+	// Attributes
+	private File folder ;
+
+
+	/**
+	 * Write a file containing the ComponentInfo of all applications of the catalog.
+	 * @throws IOException If the temporary folder cannot be created
+	 */
+	@Setup
+	public void setUp() throws IOException
+	{
+		folder = Files.createTempDirectory("discreetlauncher").toFile() ;
+		InternalFile.setFolder(folder.getAbsolutePath()) ;
+		ArrayList<String> lines = new ArrayList<>() ;
+		for(Application application : new SyntheticCatalog(size).getApplications()) lines.add(application.getComponentInfo()) ;
+		new InternalFileTXT(FILENAME).writeAllLines(lines) ;
+	}
+
+
+	/**
+	 * Remove the file and its folder.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		new InternalFileTXT(FILENAME).remove() ;
+		folder.delete() ;
+	}
+
+
+	/**
+	 * Read all lines of the file.
+	 * @return Content of the file
+	 */
+	@Benchmark
+	public ArrayList<String> readAllLines()
+	{
+		return new InternalFileTXT(FILENAME).readAllLines() ;
+	}
+}
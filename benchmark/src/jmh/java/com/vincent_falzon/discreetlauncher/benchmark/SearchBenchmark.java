@@ -0,0 +1,123 @@
+package com.vincent_falzon.discreetlauncher.benchmark ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.core.Application ;
+import com.vincent_falzon.discreetlauncher.core.IncrementalSearch ;
+import com.vincent_falzon.discreetlauncher.core.SearchIndex ;
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import java.util.ArrayList ;
+import java.util.HashMap ;
+
+/**
+ * Measure the building of the search index and the filtering of the applications for a search pattern.
+ */
+@State(Scope.Benchmark)
+public class SearchBenchmark
+{
+	// Parameters
+	@Param({ "100", "1000", "10000" })
+	public int size ;
+	@Param({ "c", "ca", "came", "mét", "ка", "zzz", "calender", "telefone" })
+	public String search ;
+
+	// Attributes
+	private ArrayList<Application> applications ;
+	private SearchIndex searchIndex ;
+
+
+	/**
+	 * Generate the catalog sorted as displayed in the search, and index it.
+	 */
+	@Setup
+	public void setUp()
+	{
+		applications = new SyntheticCatalog(size).getSortedApplications() ;
+		searchIndex = new SearchIndex(applications, new HashMap<Application, String>()) ;
+	}
+
+
+	/**
+	 * Index the applications, as done once per version of the applications list.
+	 * @return Search index
+	 */
+	@Benchmark
+	public SearchIndex buildIndex()
+	{
+		return new SearchIndex(applications, new HashMap<Application, String>()) ;
+	}
+
+
+	/**
+	 * Filter the applications with the index, as done for each typed character.
+	 * @return Matching applications
+	 */
+	@Benchmark
+	public ArrayList<Application> filter()
+	{
+		return searchIndex.filter(search, false) ;
+	}
+
+
+	/**
+	 * Filter the applications with the index, accepting typing mistakes.
+	 * @return Matching applications
+	 */
+	@Benchmark
+	public ArrayList<Application> filterWithTypos()
+	{
+		return searchIndex.filter(search, true) ;
+	}
+
+
+	/**
+	 * Type the pattern character by character, searching all applications each time.
+	 * @return Matching applications for the complete pattern
+	 */
+	@Benchmark
+	public ArrayList<Application> typeWithFullSearches()
+	{
+		ArrayList<Application> result = null ;
+		for(int i = 1 ; i <= search.length() ; i++) result = searchIndex.filter(search.substring(0, i), false) ;
+		return result ;
+	}
+
+
+	/**
+	 * Type the pattern character by character, searching only among the previous results.
+	 * @return Matching applications for the complete pattern
+	 */
+	@Benchmark
+	public ArrayList<Application> typeIncrementally()
+	{
+		IncrementalSearch incrementalSearch = new IncrementalSearch(searchIndex, false, null) ;
+		ArrayList<Application> result = null ;
+		for(int i = 1 ; i <= search.length() ; i++) result = incrementalSearch.filter(search.substring(0, i)) ;
+		return result ;
+	}
+}
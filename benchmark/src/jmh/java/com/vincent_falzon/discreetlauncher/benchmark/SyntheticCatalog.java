@@ -0,0 +1,197 @@
+package com.vincent_falzon.discreetlauncher.benchmark ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.core.Application ;
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.HashMap ;
+import java.util.Random ;
+
+/**
+ * Generate a catalog of synthetic applications with realistic multilingual labels, along with
+ * the content of the favorites, hidden and folders files. The same size always gives the same catalog.
+ */
+public class SyntheticCatalog
+{
+	// Words used to build the labels, by language (Latin, accented, Cyrillic, CJK, brand names)
+	private static final String[] ENGLISH = { "Calendar", "Camera", "Clock", "Contacts", "Files", "Gallery", "Mail",
+			"Maps", "Music", "Notes", "Phone", "Photos", "Settings", "Weather", "Wallet", "Browser", "Calculator",
+			"Radio", "Podcast", "Reader", "Tasks", "Translate", "Video", "Voice", "Keyboard", "Launcher", "Scanner" } ;
+	private static final String[] FRENCH = { "Agenda", "Appareil photo", "Météo", "Études", "Éditeur", "Réglages",
+			"Bibliothèque", "Téléphone", "Musique", "Câble", "Crédit", "Écran", "Forêt", "Hôtel", "Élan", "Cœur",
+			"Fenêtre", "Île", "Carte", "Santé", "Boîte", "Cahier", "Marché" } ;
+	private static final String[] RUSSIAN = { "Календарь", "Камера", "Часы", "Контакты", "Файлы", "Галерея", "Почта",
+			"Карты", "Музыка", "Заметки", "Телефон", "Погода", "Настройки", "Браузер", "Ёлка", "Жизнь", "Щит", "Эхо",
+			"Юла", "Яндекс", "Сбер", "Госуслуги" } ;
+	private static final String[] CJK = { "微信", "支付宝", "地图", "音乐", "相机", "天气", "日历", "設定", "カメラ", "メール" } ;
+	private static final String[] BRANDS = { "aTube", "eBay", "iPlayer", "K-9 Mail", "F-Droid", "VLC", "OsmAnd~", "2048",
+			"7-Zip", "Signal", "NewPipe", "Termux", "AntennaPod", "DAVx⁵", "Élément" } ;
+
+	// Attributes
+	private final ArrayList<Application> applications ;
+	private final HashMap<String, Application> index ;
+	private final ArrayList<String> favorites ;
+	private final ArrayList<String> hidden ;
+	private final ArrayList<ArrayList<String>> folders ;
+
+
+	/**
+	 * Constructor to generate a catalog.
+	 * @param size Number of applications
+	 */
+	public SyntheticCatalog(int size)
+	{
+		// Initializations
+		Random random = new Random(size) ;
+		applications = new ArrayList<>(size) ;
+		index = new HashMap<>() ;
+		favorites = new ArrayList<>() ;
+		hidden = new ArrayList<>() ;
+		folders = new ArrayList<>() ;
+
+		// Create the applications in a random order, as provided by the package manager
+		for(int i = 0 ; i < size ; i++)
+		{
+			String apk = "org.example.app" + i ;
+			Application application = new Application(generateLabel(random), apk + ".MainActivity", apk, null) ;
+			applications.add(application) ;
+			index.put(application.getComponentInfo(), application) ;
+		}
+
+		// Favorites: a few applications, one duplicate and one uninstalled
+		for(int i = 0 ; i < Math.min(20, size) ; i++) favorites.add(pickComponent(random)) ;
+		favorites.add(favorites.get(0)) ;
+		favorites.add("{org.example.uninstalled/org.example.uninstalled.MainActivity}") ;
+
+		// Hidden applications: about 2% of the catalog
+		for(int i = 0 ; i < Math.max(1, size / 50) ; i++) hidden.add(pickComponent(random)) ;
+
+		// Folders: about 5% of the catalog in folders of 5 to 10 applications
+		for(int i = 0 ; i < Math.max(1, size / 100) ; i++)
+		{
+			ArrayList<String> folder = new ArrayList<>() ;
+			int folder_size = 5 + random.nextInt(6) ;
+			for(int j = 0 ; j < folder_size ; j++) folder.add(pickComponent(random)) ;
+			folders.add(folder) ;
+		}
+	}
+
+
+	/**
+	 * Generate a label of one or two words, sometimes followed by a number.
+	 * @param random Deterministic source of randomness
+	 * @return A label
+	 */
+	private static String generateLabel(Random random)
+	{
+		// Choose the language (40% English, 25% French, 20% Russian, 5% CJK, 10% brand names)
+		String[] words ;
+		int language = random.nextInt(100) ;
+		if(language < 40) words = ENGLISH ;
+			else if(language < 65) words = FRENCH ;
+			else if(language < 85) words = RUSSIAN ;
+			else if(language < 90) words = CJK ;
+			else words = BRANDS ;
+
+		// Build the label
+		StringBuilder label = new StringBuilder(words[random.nextInt(words.length)]) ;
+		if(random.nextInt(3) == 0) label.append(' ').append(words[random.nextInt(words.length)]) ;
+		if(random.nextInt(5) == 0) label.append(' ').append(random.nextInt(100)) ;
+		return label.toString() ;
+	}
+
+
+	/**
+	 * Pick the ComponentInfo of a random application.
+	 * @param random Deterministic source of randomness
+	 * @return ComponentInfo of an application in the catalog
+	 */
+	private String pickComponent(Random random)
+	{
+		return applications.get(random.nextInt(applications.size())).getComponentInfo() ;
+	}
+
+
+	/**
+	 * Get the applications in the order of the package manager (not sorted).
+	 * @return List of applications
+	 */
+	public ArrayList<Application> getApplications()
+	{
+		return applications ;
+	}
+
+
+	/**
+	 * Get the applications sorted by display name.
+	 * @return New sorted list of applications
+	 */
+	public ArrayList<Application> getSortedApplications()
+	{
+		ArrayList<Application> sorted = new ArrayList<>(applications) ;
+		Collections.sort(sorted) ;
+		return sorted ;
+	}
+
+
+	/**
+	 * Get the applications indexed by ComponentInfo.
+	 * @return Map of the applications
+	 */
+	public HashMap<String, Application> getIndex()
+	{
+		return index ;
+	}
+
+
+	/**
+	 * Get the content of the favorites file.
+	 * @return Lines of ComponentInfo
+	 */
+	public ArrayList<String> getFavorites()
+	{
+		return favorites ;
+	}
+
+
+	/**
+	 * Get the content of the hidden applications file.
+	 * @return Lines of ComponentInfo
+	 */
+	public ArrayList<String> getHidden()
+	{
+		return hidden ;
+	}
+
+
+	/**
+	 * Get the content of the folders files.
+	 * @return Lines of ComponentInfo for each folder
+	 */
+	public ArrayList<ArrayList<String>> getFolders()
+	{
+		return folders ;
+	}
+}
@@ -0,0 +1,130 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.Constants ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFile ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileBIN ;
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import org.openjdk.jmh.annotations.TearDown ;
+import java.io.ByteArrayOutputStream ;
+import java.io.DataOutputStream ;
+import java.io.File ;
+import java.io.IOException ;
+import java.nio.file.Files ;
+
+/**
+ * Measure the loading of a stored icon pack index, as done at each update while the pack is unchanged
+ * (in the same package as IconPackIndex to reach it).
+ */
+@State(Scope.Benchmark)
+public class IconPackIndexBenchmark
+{
+	// Constants (header of the stored index, written in the same format as IconPackIndex)
+	private static final int MAGIC = 0x444C4950 ;
+	private static final int FORMAT = 2 ;
+	private static final String PACK_NAME = "org.example.iconpack" ;
+	private static final long VERSION_CODE = 42 ;
+	private static final long LAST_UPDATE = 1600000000000L ;
+
+	// Parameters
+	@Param({ "1000", "5000", "20000" })
+	public int size ;
+
+	// Attributes
+	private File folder ;
+
+
+	/**
+	 * Write a stored index with one drawable for each component, plus the layers of the themed icons.
+	 * @throws IOException If the temporary folder cannot be created or the index cannot be encoded
+	 */
+	@Setup
+	public void setUp() throws IOException
+	{
+		// Encode the index
+		ByteArrayOutputStream content = new ByteArrayOutputStream() ;
+		DataOutputStream output = new DataOutputStream(content) ;
+		output.writeInt(MAGIC) ;
+		output.writeInt(FORMAT) ;
+		output.writeUTF(PACK_NAME) ;
+		output.writeLong(VERSION_CODE) ;
+		output.writeLong(LAST_UPDATE) ;
+		output.writeInt(size + 2) ;
+		for(int i = 0 ; i < size ; i++)
+		{
+			output.writeUTF("icon_app" + i) ;
+			output.writeInt(0x7f010000 + i) ;
+		}
+		output.writeUTF("iconback") ;
+		output.writeInt(0x7f010000 + size) ;
+		output.writeUTF("iconmask") ;
+		output.writeInt(0x7f010000 + size + 1) ;
+		output.writeInt(size) ;
+		for(int i = 0 ; i < size ; i++)
+		{
+			output.writeUTF("org.example.app" + i + "/org.example.app" + i + ".MainActivity") ;
+			output.writeInt(i) ;
+		}
+		output.writeInt(1) ;
+		output.writeInt(size) ;
+		output.writeInt(size + 1) ;
+		output.writeInt(-1) ;
+		output.writeFloat(0.8f) ;
+		output.close() ;
+
+		// Store it in the internal folder, and check that it is accepted
+		folder = Files.createTempDirectory("discreetlauncher").toFile() ;
+		InternalFile.setFolder(folder.getAbsolutePath()) ;
+		new InternalFileBIN(Constants.FILE_CACHE_ICON_PACK).writeAllBytes(content.toByteArray()) ;
+		if(((IconPackIndex)load()).getIconName("org.example.app0/org.example.app0.MainActivity") == null)
+			throw new IllegalStateException("The format of the stored icon pack index has changed") ;
+	}
+
+
+	/**
+	 * Remove the file and its folder.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		new InternalFileBIN(Constants.FILE_CACHE_ICON_PACK).remove() ;
+		folder.delete() ;
+	}
+
+
+	/**
+	 * Read and decode the stored index (the resources of the pack are only used if it is outdated).
+	 * @return Index of the icon pack (as an Object, the class not being visible to the generated benchmark code)
+	 */
+	@Benchmark
+	public Object load()
+	{
+		return IconPackIndex.load(null, PACK_NAME, 0, VERSION_CODE, LAST_UPDATE) ;
+	}
+}
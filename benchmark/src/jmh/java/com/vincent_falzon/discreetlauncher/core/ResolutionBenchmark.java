@@ -0,0 +1,131 @@
+package com.vincent_falzon.discreetlauncher.core ;
+
+// License
+/*
+
+	This file is part of Discreet Launcher.
+
+	Copyright (C) 2019-2021 Vincent Falzon
+
+	This program is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+
+// Imports
+import com.vincent_falzon.discreetlauncher.Constants ;
+import com.vincent_falzon.discreetlauncher.benchmark.SyntheticCatalog ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFile ;
+import com.vincent_falzon.discreetlauncher.storage.InternalFileTXT ;
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import org.openjdk.jmh.annotations.TearDown ;
+import java.io.File ;
+import java.io.IOException ;
+import java.nio.file.Files ;
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.HashSet ;
+
+/**
+ * Measure the resolution of the favorites, hidden and folders files against the catalog index,
+ * with the methods used by ApplicationsList (in the same package to reach them).
+ */
+@State(Scope.Benchmark)
+public class ResolutionBenchmark
+{
+	// Parameters
+	@Param({ "100", "1000", "10000" })
+	public int size ;
+
+	// Attributes
+	private SyntheticCatalog catalog ;
+	private File folder ;
+
+
+	/**
+	 * Generate the catalog and write its hidden applications file.
+	 * @throws IOException If the temporary folder cannot be created
+	 */
+	@Setup
+	public void setUp() throws IOException
+	{
+		catalog = new SyntheticCatalog(size) ;
+		folder = Files.createTempDirectory("discreetlauncher").toFile() ;
+		InternalFile.setFolder(folder.getAbsolutePath()) ;
+		new InternalFileTXT(Constants.FILE_HIDDEN).writeAllLines(catalog.getHidden()) ;
+	}
+
+
+	/**
+	 * Remove the file and its folder.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		new InternalFileTXT(Constants.FILE_HIDDEN).remove() ;
+		folder.delete() ;
+	}
+
+
+	/**
+	 * Index the applications by ComponentInfo.
+	 * @return Index of the catalog
+	 */
+	@Benchmark
+	public HashMap<String, Application> buildIndex()
+	{
+		return ApplicationsList.buildIndex(catalog.getApplications(), true) ;
+	}
+
+
+	/**
+	 * Resolve the favorites file.
+	 * @return Favorites applications
+	 */
+	@Benchmark
+	public ArrayList<Application> resolveFavorites()
+	{
+		ArrayList<Application> favorites = new ArrayList<>() ;
+		ApplicationsList.resolve(catalog.getFavorites(), catalog.getIndex(), new HashSet<Application>(), favorites) ;
+		return favorites ;
+	}
+
+
+	/**
+	 * Read the hidden applications file and move them out of a copy of the drawer.
+	 * @return Hidden applications
+	 */
+	@Benchmark
+	public ArrayList<Application> manageHiddenApplications()
+	{
+		return ApplicationsList.manageHiddenApplications(new ArrayList<>(catalog.getApplications())) ;
+	}
+
+
+	/**
+	 * Resolve all folders files, an application being only in one folder.
+	 * @return Applications moved in folders
+	 */
+	@Benchmark
+	public HashSet<Application> resolveFolders()
+	{
+		HashSet<Application> moved = new HashSet<>() ;
+		for(ArrayList<String> folder_file : catalog.getFolders())
+			ApplicationsList.resolve(folder_file, catalog.getIndex(), moved, new ArrayList<Application>()) ;
+		return moved ;
+	}
+}